@@ -1,10 +1,12 @@
 package me.neznamy.tab.api;
 
+import java.util.Map;
 import java.util.UUID;
 
 import lombok.NonNull;
 import lombok.Setter;
 import me.neznamy.tab.api.bossbar.BossBarManager;
+import me.neznamy.tab.api.cpu.LatencyStatistics;
 import me.neznamy.tab.api.event.EventBus;
 import me.neznamy.tab.api.placeholder.PlaceholderManager;
 import me.neznamy.tab.api.scoreboard.ScoreboardManager;
@@ -132,4 +134,12 @@ public abstract class TabAPI {
      * @return  the event bus
      */
     public abstract @Nullable EventBus getEventBus();
+
+    /**
+     * Returns latency statistics of features from the previous 10-second time period.
+     * Key of the outer map is feature name, key of the inner map is usage type.
+     *
+     * @return  latency statistics per feature and usage type
+     */
+    public abstract @NotNull Map<String, Map<String, LatencyStatistics>> getFeatureLatencies();
 }
@@ -0,0 +1,37 @@
+package me.neznamy.tab.api.cpu;
+
+/**
+ * Latency statistics of a measured task type over a single 10-second time period.
+ * All values are in nanoseconds. Percentiles are approximate with relative
+ * error under 13%, maximum is exact.
+ */
+public interface LatencyStatistics {
+
+    /**
+     * Returns amount of measured executions
+     *
+     * @return  amount of measured executions
+     */
+    long getCount();
+
+    /**
+     * Returns median execution time in nanoseconds
+     *
+     * @return  median execution time
+     */
+    long getP50();
+
+    /**
+     * Returns 99th percentile of execution time in nanoseconds
+     *
+     * @return  99th percentile of execution time
+     */
+    long getP99();
+
+    /**
+     * Returns longest execution time in nanoseconds
+     *
+     * @return  longest execution time
+     */
+    long getMax();
+}
@@ -5,6 +5,7 @@ import me.neznamy.tab.api.TabAPI;
 import me.neznamy.tab.api.TabPlayer;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -47,6 +48,69 @@ public interface PlaceholderManager {
      */
     @NotNull PlayerPlaceholder registerPlayerPlaceholder(@NonNull String identifier, int refresh, @NonNull Function<TabPlayer, Object> function);
 
+    /**
+     * Registers a player placeholder (placeholder different output per player).
+     * Placeholders declared as thread-safe are evaluated for all players in parallel,
+     * therefore the function must be safe to call concurrently from multiple threads.
+     *
+     * @param   identifier
+     *          Placeholder identifier
+     * @param   refresh
+     *          Refresh interval
+     * @param   threadSafe
+     *          Whether function is safe to call concurrently from multiple threads
+     * @param   function
+     *          Function for placeholder output
+     * @return  Registered placeholder for further use
+     * @throws  IllegalArgumentException
+     *          If {@code identifier} does not start and end with {@code %} or
+     *          {@code refresh} is not divisible by 50
+     */
+    @NotNull PlayerPlaceholder registerPlayerPlaceholder(@NonNull String identifier, int refresh, boolean threadSafe, @NonNull Function<TabPlayer, Object> function);
+
+    /**
+     * Registers an asynchronous server placeholder (placeholder with same output for all players).
+     * When refreshing, a new request is started if the previous one already completed. Until it
+     * completes, last known value keeps being displayed. Features using the placeholder are only
+     * refreshed once the request completes with a new value.
+     *
+     * @param   identifier
+     *          Placeholder identifier
+     * @param   refresh
+     *          Refresh interval
+     * @param   timeout
+     *          Time in milliseconds after which pending request is cancelled, {@code 0} or less for no timeout
+     * @param   supplier
+     *          Supplier starting a new request for placeholder output
+     * @return  Registered placeholder for further use
+     * @throws  IllegalArgumentException
+     *          If {@code identifier} does not start and end with {@code %} or
+     *          {@code refresh} is not divisible by 50
+     */
+    @NotNull ServerPlaceholder registerAsyncServerPlaceholder(@NonNull String identifier, int refresh, int timeout, @NonNull Supplier<CompletableFuture<?>> supplier);
+
+    /**
+     * Registers an asynchronous player placeholder (placeholder different output per player).
+     * When refreshing, a new request is started for each player whose previous request already
+     * completed, up to a limit of pending requests. Until it completes, last known value keeps
+     * being displayed. Features using the placeholder are only refreshed once the request
+     * completes with a new value.
+     *
+     * @param   identifier
+     *          Placeholder identifier
+     * @param   refresh
+     *          Refresh interval
+     * @param   timeout
+     *          Time in milliseconds after which pending request is cancelled, {@code 0} or less for no timeout
+     * @param   function
+     *          Function starting a new request for placeholder output
+     * @return  Registered placeholder for further use
+     * @throws  IllegalArgumentException
+     *          If {@code identifier} does not start and end with {@code %} or
+     *          {@code refresh} is not divisible by 50
+     */
+    @NotNull PlayerPlaceholder registerAsyncPlayerPlaceholder(@NonNull String identifier, int refresh, int timeout, @NonNull Function<TabPlayer, CompletableFuture<?>> function);
+
     /**
      * Registers a relational placeholder (placeholder with output different for each player duo)
      *
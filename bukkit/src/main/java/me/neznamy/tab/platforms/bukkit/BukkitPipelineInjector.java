@@ -6,7 +6,6 @@ import lombok.SneakyThrows;
 import me.neznamy.tab.platforms.bukkit.scoreboard.PacketScoreboard;
 import me.neznamy.tab.shared.TabConstants;
 import me.neznamy.tab.shared.features.nametags.NameTag;
-import me.neznamy.tab.shared.platform.TabList;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
 import me.neznamy.tab.platforms.bukkit.nms.storage.nms.NMSStorage;
@@ -15,8 +14,8 @@ import me.neznamy.tab.shared.features.injection.NettyPipelineInjector;
 import me.neznamy.tab.shared.features.sorting.Sorting;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.invoke.MethodHandle;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Pipeline injection for bukkit
@@ -59,62 +58,76 @@ public class BukkitPipelineInjector extends NettyPipelineInjector {
     }
 
     @Override
-    public boolean isDisplayObjective(@NotNull Object packet) {
-        return PacketScoreboard.DisplayObjectiveClass.isInstance(packet);
+    public boolean isDisplayObjective(@NotNull Class<?> packetClass) {
+        return PacketScoreboard.DisplayObjectiveClass.isAssignableFrom(packetClass);
     }
 
     @Override
-    public boolean isObjective(@NotNull Object packet) {
-        return PacketScoreboard.ObjectivePacketClass.isInstance(packet);
+    public boolean isObjective(@NotNull Class<?> packetClass) {
+        return PacketScoreboard.ObjectivePacketClass.isAssignableFrom(packetClass);
     }
 
     @Override
-    public boolean isTeam(@NotNull Object packet) {
-        return PacketScoreboard.TeamPacketClass.isInstance(packet);
+    public boolean isTeam(@NotNull Class<?> packetClass) {
+        return PacketScoreboard.TeamPacketClass.isAssignableFrom(packetClass);
     }
 
     @Override
-    public boolean isPlayerInfo(@NotNull Object packet) {
-        return BukkitTabList.PacketPlayOutPlayerInfoClass.isInstance(packet);
+    public boolean isPlayerInfo(@NotNull Class<?> packetClass) {
+        return BukkitTabList.PacketPlayOutPlayerInfoClass.isAssignableFrom(packetClass);
     }
 
     @Override
     @SneakyThrows
     public void onPlayerInfo(@NotNull TabPlayer receiver, @NotNull Object packet) {
         NMSStorage nms = NMSStorage.getInstance();
-        List<String> actions;
-        if (BukkitTabList.ClientboundPlayerInfoRemovePacket != null) {
-            //1.19.3+
-            actions = ((EnumSet<?>)BukkitTabList.ACTION.get(packet)).stream().map(Enum::name).collect(Collectors.toList());
+        Object action = (Object) PlayerInfoHandles.ACTION.invokeExact(packet);
+        if (nms.is1_19_3Plus()) {
+            EnumSet<?> actions = (EnumSet<?>) action;
+            if (!actions.contains(BukkitTabList.ACTION_ADD_PLAYER) && !actions.contains(BukkitTabList.ACTION_UPDATE_DISPLAY_NAME)) return;
         } else {
-            //1.19.2-
-            actions = Collections.singletonList(BukkitTabList.ACTION.get(packet).toString());
+            if (action != BukkitTabList.ACTION_ADD_PLAYER && action != BukkitTabList.ACTION_UPDATE_DISPLAY_NAME) return;
         }
-        List<Object> updatedList = new ArrayList<>();
-        for (Object nmsData : (List<?>) BukkitTabList.PLAYERS.get(packet)) {
-            GameProfile profile = (GameProfile) BukkitTabList.PlayerInfoData_getProfile.invoke(nmsData);
-            Object displayName = null;
-            if (actions.contains(TabList.Action.UPDATE_DISPLAY_NAME.name()) || actions.contains(TabList.Action.ADD_PLAYER.name())) {
-                displayName = BukkitTabList.PlayerInfoData_DisplayName.get(nmsData);
-                IChatBaseComponent newDisplayName = TAB.getInstance().getFeatureManager().onDisplayNameChange(receiver, profile.getId());
-                if (newDisplayName != null) displayName = nms.toNMSComponent(newDisplayName, receiver.getVersion());
-                if (!nms.is1_19_3Plus()) BukkitTabList.PlayerInfoData_DisplayName.set(nmsData, displayName);
-            }
-            if (nms.is1_19_3Plus()) {
-                // 1.19.3 is using records, which do not allow changing final fields, need to rewrite the list entirely
-                updatedList.add(BukkitTabList.newPlayerInfoData.newInstance(
-                        profile.getId(),
-                        profile,
-                        BukkitTabList.PlayerInfoData_Listed.getBoolean(nmsData),
-                        BukkitTabList.PlayerInfoData_Latency.getInt(nmsData),
-                        BukkitTabList.PlayerInfoData_GameMode.get(nmsData),
-                        displayName,
-                        BukkitTabList.PlayerInfoData_RemoteChatSession.get(nmsData)));
+        List<?> players = (List<?>) (Object) PlayerInfoHandles.PLAYERS.invokeExact(packet);
+        List<Object> updatedList = null;
+        for (int i=0; i<players.size(); i++) {
+            Object nmsData = players.get(i);
+            GameProfile profile = (GameProfile) (Object) PlayerInfoHandles.GET_PROFILE.invokeExact(nmsData);
+            IChatBaseComponent newDisplayName = TAB.getInstance().getFeatureManager().onDisplayNameChange(receiver, profile.getId());
+            if (newDisplayName == null) continue;
+            Object displayName = nms.toNMSComponent(newDisplayName, receiver.getVersion());
+            Object oldDisplayName = (Object) PlayerInfoHandles.DISPLAY_NAME.invokeExact(nmsData);
+            if (displayName == oldDisplayName || (displayName != null && displayName.equals(oldDisplayName))) continue;
+            if (!nms.is1_19_3Plus()) {
+                PlayerInfoHandles.SET_DISPLAY_NAME.invokeExact(nmsData, displayName);
+                continue;
             }
+            // 1.19.3 is using records, which do not allow changing final fields, need to replace the entry
+            if (updatedList == null) updatedList = new ArrayList<>(players);
+            updatedList.set(i, BukkitTabList.newPlayerInfoData.newInstance(
+                    profile.getId(),
+                    profile,
+                    BukkitTabList.PlayerInfoData_Listed.getBoolean(nmsData),
+                    BukkitTabList.PlayerInfoData_Latency.getInt(nmsData),
+                    BukkitTabList.PlayerInfoData_GameMode.get(nmsData),
+                    displayName,
+                    BukkitTabList.PlayerInfoData_RemoteChatSession.get(nmsData)));
         }
-        if (nms.is1_19_3Plus()) {
-            BukkitTabList.PLAYERS.set(packet, updatedList);
-        }
+        if (updatedList != null) BukkitTabList.PLAYERS.set(packet, updatedList);
+    }
+
+    /**
+     * Handles of player info packet members read for every player info packet. Kept in
+     * {@code static final} fields, so the JIT can inline them. Initialized on first
+     * player info packet, which is always after NMS is loaded.
+     */
+    private static class PlayerInfoHandles {
+
+        private static final MethodHandle ACTION = BukkitTabList.ACTION.getterHandle();
+        private static final MethodHandle PLAYERS = BukkitTabList.PLAYERS.getterHandle();
+        private static final MethodHandle GET_PROFILE = BukkitTabList.PlayerInfoData_getProfile.noArgsHandle();
+        private static final MethodHandle DISPLAY_NAME = BukkitTabList.PlayerInfoData_DisplayName.getterHandle();
+        private static final MethodHandle SET_DISPLAY_NAME = BukkitTabList.PlayerInfoData_DisplayName.setterHandle();
     }
 
     @SuppressWarnings("unchecked")
@@ -7,15 +7,15 @@ import lombok.SneakyThrows;
 import me.neznamy.tab.platforms.bukkit.nms.storage.nms.NMSStorage;
 import me.neznamy.tab.shared.ProtocolVersion;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
+import me.neznamy.tab.shared.platform.BufferedTabList;
 import me.neznamy.tab.shared.platform.TabList;
+import me.neznamy.tab.shared.util.ConstructorAccessor;
+import me.neznamy.tab.shared.util.FieldAccessor;
+import me.neznamy.tab.shared.util.MethodAccessor;
 import me.neznamy.tab.shared.util.ReflectionUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.*;
 
 /**
@@ -30,100 +30,116 @@ import java.util.*;
  */
 @RequiredArgsConstructor
 @SuppressWarnings({"unchecked", "rawtypes"})
-public class BukkitTabList implements TabList {
+public class BukkitTabList extends BufferedTabList {
 
     // NMS Fields
     public static Class<?> PacketPlayOutPlayerListHeaderFooterClass;
-    public static Constructor<?> newPacketPlayOutPlayerListHeaderFooter;
-    public static Field HEADER;
-    public static Field FOOTER;
+    public static ConstructorAccessor newPacketPlayOutPlayerListHeaderFooter;
+    public static FieldAccessor HEADER;
+    public static FieldAccessor FOOTER;
 
     public static Class<?> PacketPlayOutPlayerInfoClass;
-    public static Constructor<?> newPacketPlayOutPlayerInfo;
-    public static Field ACTION;
-    public static Field PLAYERS;
+    public static ConstructorAccessor newPacketPlayOutPlayerInfo;
+    public static FieldAccessor ACTION;
+    public static FieldAccessor PLAYERS;
     public static Class<Enum> EnumPlayerInfoActionClass;
     public static Class<Enum> EnumGamemodeClass;
     public static Class<?> ClientboundPlayerInfoRemovePacket;
     public static Class<?> RemoteChatSession$Data;
-    public static Constructor<?> newClientboundPlayerInfoRemovePacket;
+    public static ConstructorAccessor newClientboundPlayerInfoRemovePacket;
 
     public static Class<?> PlayerInfoDataClass;
-    public static Constructor<?> newPlayerInfoData;
-    public static Method PlayerInfoData_getProfile;
-    public static Field PlayerInfoData_Latency;
-    public static Field PlayerInfoData_GameMode;
-    public static Field PlayerInfoData_DisplayName;
-    public static Field PlayerInfoData_Listed;
-    public static Field PlayerInfoData_RemoteChatSession;
+    public static ConstructorAccessor newPlayerInfoData;
+    public static MethodAccessor PlayerInfoData_getProfile;
+    public static FieldAccessor PlayerInfoData_Latency;
+    public static FieldAccessor PlayerInfoData_GameMode;
+    public static FieldAccessor PlayerInfoData_DisplayName;
+    public static FieldAccessor PlayerInfoData_Listed;
+    public static FieldAccessor PlayerInfoData_RemoteChatSession;
+
+    /** NMS player info actions which may carry a display name */
+    public static Enum<?> ACTION_ADD_PLAYER;
+    public static Enum<?> ACTION_UPDATE_DISPLAY_NAME;
+
+    /** Entry update actions, in order of sending them to players below 1.19.3 */
+    private static final Action[] UPDATE_ACTIONS = {Action.UPDATE_DISPLAY_NAME, Action.UPDATE_LATENCY, Action.UPDATE_GAME_MODE};
 
     /** Player this TabList belongs to */
     private final BukkitTabPlayer player;
 
     public static void load(NMSStorage nms) throws NoSuchMethodException {
         if (nms.getMinorVersion() >= 17) {
-            newPacketPlayOutPlayerListHeaderFooter = PacketPlayOutPlayerListHeaderFooterClass.getConstructor(nms.IChatBaseComponent, nms.IChatBaseComponent);
+            newPacketPlayOutPlayerListHeaderFooter = ConstructorAccessor.of(PacketPlayOutPlayerListHeaderFooterClass.getConstructor(nms.IChatBaseComponent, nms.IChatBaseComponent));
         } else {
-            newPacketPlayOutPlayerListHeaderFooter = PacketPlayOutPlayerListHeaderFooterClass.getConstructor();
-            HEADER = ReflectionUtils.getFields(PacketPlayOutPlayerListHeaderFooterClass, nms.IChatBaseComponent).get(0);
-            FOOTER = ReflectionUtils.getFields(PacketPlayOutPlayerListHeaderFooterClass, nms.IChatBaseComponent).get(1);
+            newPacketPlayOutPlayerListHeaderFooter = ConstructorAccessor.of(PacketPlayOutPlayerListHeaderFooterClass.getConstructor());
+            HEADER = FieldAccessor.of(ReflectionUtils.getFields(PacketPlayOutPlayerListHeaderFooterClass, nms.IChatBaseComponent).get(0));
+            FOOTER = FieldAccessor.of(ReflectionUtils.getFields(PacketPlayOutPlayerListHeaderFooterClass, nms.IChatBaseComponent).get(1));
         }
         if (nms.is1_19_3Plus()) {
-            newClientboundPlayerInfoRemovePacket = ClientboundPlayerInfoRemovePacket.getConstructor(List.class);
-            newPacketPlayOutPlayerInfo = PacketPlayOutPlayerInfoClass.getConstructor(EnumSet.class, Collection.class);
-            ACTION = ReflectionUtils.getOnlyField(PacketPlayOutPlayerInfoClass, EnumSet.class);
+            newClientboundPlayerInfoRemovePacket = ConstructorAccessor.of(ClientboundPlayerInfoRemovePacket.getConstructor(List.class));
+            newPacketPlayOutPlayerInfo = ConstructorAccessor.of(PacketPlayOutPlayerInfoClass.getConstructor(EnumSet.class, Collection.class));
+            ACTION = FieldAccessor.of(ReflectionUtils.getOnlyField(PacketPlayOutPlayerInfoClass, EnumSet.class));
         } else {
-            newPacketPlayOutPlayerInfo = PacketPlayOutPlayerInfoClass.getConstructor(EnumPlayerInfoActionClass, Array.newInstance(nms.EntityPlayer, 0).getClass());
-            ACTION = ReflectionUtils.getOnlyField(PacketPlayOutPlayerInfoClass, EnumPlayerInfoActionClass);
+            newPacketPlayOutPlayerInfo = ConstructorAccessor.of(PacketPlayOutPlayerInfoClass.getConstructor(EnumPlayerInfoActionClass, Array.newInstance(nms.EntityPlayer, 0).getClass()));
+            ACTION = FieldAccessor.of(ReflectionUtils.getOnlyField(PacketPlayOutPlayerInfoClass, EnumPlayerInfoActionClass));
         }
-        PLAYERS = ReflectionUtils.getOnlyField(PacketPlayOutPlayerInfoClass, List.class);
-        newPlayerInfoData = ReflectionUtils.getOnlyConstructor(PlayerInfoDataClass);
-        PlayerInfoData_getProfile = ReflectionUtils.getOnlyMethod(PlayerInfoDataClass, GameProfile.class);
-        PlayerInfoData_Latency = ReflectionUtils.getOnlyField(PlayerInfoDataClass, int.class);
-        PlayerInfoData_GameMode = ReflectionUtils.getOnlyField(PlayerInfoDataClass, EnumGamemodeClass);
-        PlayerInfoData_DisplayName = ReflectionUtils.getOnlyField(PlayerInfoDataClass, nms.IChatBaseComponent);
+        PLAYERS = FieldAccessor.of(ReflectionUtils.getOnlyField(PacketPlayOutPlayerInfoClass, List.class));
+        ACTION_ADD_PLAYER = Enum.valueOf(EnumPlayerInfoActionClass, Action.ADD_PLAYER.name());
+        ACTION_UPDATE_DISPLAY_NAME = Enum.valueOf(EnumPlayerInfoActionClass, Action.UPDATE_DISPLAY_NAME.name());
+        newPlayerInfoData = ConstructorAccessor.of(ReflectionUtils.getOnlyConstructor(PlayerInfoDataClass));
+        PlayerInfoData_getProfile = MethodAccessor.of(ReflectionUtils.getOnlyMethod(PlayerInfoDataClass, GameProfile.class));
+        PlayerInfoData_Latency = FieldAccessor.of(ReflectionUtils.getOnlyField(PlayerInfoDataClass, int.class));
+        PlayerInfoData_GameMode = FieldAccessor.of(ReflectionUtils.getOnlyField(PlayerInfoDataClass, EnumGamemodeClass));
+        PlayerInfoData_DisplayName = FieldAccessor.of(ReflectionUtils.getOnlyField(PlayerInfoDataClass, nms.IChatBaseComponent));
         if (nms.is1_19_3Plus()) {
-            PlayerInfoData_Listed = ReflectionUtils.getOnlyField(PlayerInfoDataClass, boolean.class);
-            PlayerInfoData_RemoteChatSession = ReflectionUtils.getOnlyField(PlayerInfoDataClass, RemoteChatSession$Data);
+            PlayerInfoData_Listed = FieldAccessor.of(ReflectionUtils.getOnlyField(PlayerInfoDataClass, boolean.class));
+            PlayerInfoData_RemoteChatSession = FieldAccessor.of(ReflectionUtils.getOnlyField(PlayerInfoDataClass, RemoteChatSession$Data));
         }
     }
 
     @Override
     @SneakyThrows
-    public void removeEntry(@NotNull UUID entry) {
+    protected void sendRemoveEntry(@NotNull UUID entry) {
         if (ClientboundPlayerInfoRemovePacket != null) {
             //1.19.3+
             player.sendPacket(newClientboundPlayerInfoRemovePacket.newInstance(Collections.singletonList(entry)));
         } else {
             //1.19.2-
-            player.sendPacket(createPacket(Action.REMOVE_PLAYER, new Entry.Builder(entry).build(), player.getVersion()));
+            player.sendPacket(createPacket(EnumSet.of(Action.REMOVE_PLAYER),
+                    Collections.singletonList(new Entry.Builder(entry).build()), player.getVersion()));
         }
     }
 
     @Override
-    public void updateDisplayName(@NotNull UUID entry, @Nullable IChatBaseComponent displayName) {
-        player.sendPacket(createPacket(Action.UPDATE_DISPLAY_NAME,
-                new Entry.Builder(entry).displayName(displayName).build(), player.getVersion())
-        );
-    }
-
-    @Override
-    public void updateLatency(@NotNull UUID entry, int latency) {
-        player.sendPacket(createPacket(Action.UPDATE_LATENCY,
-                new Entry.Builder(entry).latency(latency).build(), player.getVersion())
-        );
+    protected void sendUpdates(@NotNull Collection<EntryUpdate> updates) {
+        if (NMSStorage.getInstance().is1_19_3Plus()) {
+            // Single packet for each combination of actions
+            for (Map.Entry<EnumSet<Action>, List<EntryUpdate>> group : groupByActions(updates).entrySet()) {
+                player.sendPacket(createPacket(group.getKey(), toEntries(group.getValue()), player.getVersion()));
+            }
+        } else {
+            // Single packet for each action
+            for (Action action : UPDATE_ACTIONS) {
+                List<Entry> entries = new ArrayList<>();
+                for (EntryUpdate update : updates) {
+                    if (update.getActions().contains(action)) entries.add(update.toEntry());
+                }
+                if (!entries.isEmpty()) player.sendPacket(createPacket(EnumSet.of(action), entries, player.getVersion()));
+            }
+        }
     }
 
     @Override
-    public void updateGameMode(@NotNull UUID entry, int gameMode) {
-        player.sendPacket(createPacket(Action.UPDATE_GAME_MODE,
-                new Entry.Builder(entry).gameMode(gameMode).build(), player.getVersion())
-        );
+    protected void sendAddEntry(@NotNull Entry entry) {
+        player.sendPacket(createPacket(EnumSet.of(Action.ADD_PLAYER), Collections.singletonList(entry), player.getVersion()));
     }
 
-    @Override
-    public void addEntry(@NotNull Entry entry) {
-        player.sendPacket(createPacket(Action.ADD_PLAYER, entry, player.getVersion()));
+    private @NotNull List<Entry> toEntries(@NotNull List<EntryUpdate> updates) {
+        List<Entry> entries = new ArrayList<>(updates.size());
+        for (EntryUpdate update : updates) {
+            entries.add(update.toEntry());
+        }
+        return entries;
     }
 
     @Override
@@ -143,53 +159,73 @@ public class BukkitTabList implements TabList {
         player.sendPacket(packet);
     }
 
+    /**
+     * Creates PlayerInfo packet with specified actions and entries. Below 1.19.3,
+     * only a single action is supported.
+     *
+     * @param   actions
+     *          Actions of the packet
+     * @param   entries
+     *          Entries to put into the packet
+     * @param   clientVersion
+     *          Version of player to create the packet for
+     * @return  Created packet
+     */
     @SneakyThrows
-    private Object createPacket(TabList.Action action, TabList.Entry entry, ProtocolVersion clientVersion) {
+    private Object createPacket(@NotNull EnumSet<Action> actions, @NotNull Collection<Entry> entries, @NotNull ProtocolVersion clientVersion) {
         NMSStorage nms = NMSStorage.getInstance();
         if (nms.getMinorVersion() < 8) return null;
         Object packet;
-        List<Object> players = new ArrayList<>();
+        List<Object> players = new ArrayList<>(entries.size());
         if (NMSStorage.getInstance().is1_19_3Plus()) {
-            EnumSet<?> actions;
-            if (action == TabList.Action.ADD_PLAYER) {
-                actions = EnumSet.allOf(EnumPlayerInfoActionClass);
+            EnumSet<?> nmsActions;
+            if (actions.contains(Action.ADD_PLAYER)) {
+                nmsActions = EnumSet.allOf(EnumPlayerInfoActionClass);
             } else {
-                actions = EnumSet.of(Enum.valueOf(EnumPlayerInfoActionClass, action.name()));
+                nmsActions = EnumSet.noneOf(EnumPlayerInfoActionClass);
+                for (Action action : actions) {
+                    ((EnumSet) nmsActions).add(Enum.valueOf(EnumPlayerInfoActionClass, action.name()));
+                }
+            }
+            packet = newPacketPlayOutPlayerInfo.newInstance(nmsActions, Collections.emptyList());
+            for (Entry entry : entries) {
+                players.add(newPlayerInfoData.newInstance(
+                        entry.getUniqueId(),
+                        createProfile(entry),
+                        true,
+                        entry.getLatency(),
+                        int2GameMode(entry.getGameMode()),
+                        entry.getDisplayName() == null ? null : nms.toNMSComponent(entry.getDisplayName(), clientVersion),
+                        null
+                ));
             }
-            packet = newPacketPlayOutPlayerInfo.newInstance(actions, Collections.emptyList());
-            GameProfile profile = new GameProfile(entry.getUniqueId(), entry.getName());
-            if (entry.getSkin() != null) profile.getProperties().put(TabList.TEXTURES_PROPERTY,
-                    new Property(TabList.TEXTURES_PROPERTY, entry.getSkin().getValue(), entry.getSkin().getSignature()));
-            players.add(newPlayerInfoData.newInstance(
-                    entry.getUniqueId(),
-                    profile,
-                    true,
-                    entry.getLatency(),
-                    int2GameMode(entry.getGameMode()),
-                    entry.getDisplayName() == null ? null : nms.toNMSComponent(entry.getDisplayName(), clientVersion),
-                    null
-            ));
         } else {
-            packet = newPacketPlayOutPlayerInfo.newInstance(Enum.valueOf(EnumPlayerInfoActionClass, action.name()),
+            packet = newPacketPlayOutPlayerInfo.newInstance(Enum.valueOf(EnumPlayerInfoActionClass, actions.iterator().next().name()),
                     Array.newInstance(NMSStorage.getInstance().EntityPlayer, 0));
-            GameProfile profile = new GameProfile(entry.getUniqueId(), entry.getName());
-            if (entry.getSkin() != null) profile.getProperties().put(TabList.TEXTURES_PROPERTY,
-                    new Property(TabList.TEXTURES_PROPERTY, entry.getSkin().getValue(), entry.getSkin().getSignature()));
-            List<Object> parameters = new ArrayList<>();
-            if (newPlayerInfoData.getParameterTypes()[0] == PacketPlayOutPlayerInfoClass) {
-                parameters.add(packet);
+            for (Entry entry : entries) {
+                List<Object> parameters = new ArrayList<>();
+                if (newPlayerInfoData.getParameterTypes()[0] == PacketPlayOutPlayerInfoClass) {
+                    parameters.add(packet);
+                }
+                parameters.add(createProfile(entry));
+                parameters.add(entry.getLatency());
+                parameters.add(int2GameMode(entry.getGameMode()));
+                parameters.add(entry.getDisplayName() == null ? null : nms.toNMSComponent(entry.getDisplayName(), clientVersion));
+                if (nms.getMinorVersion() >= 19) parameters.add(null);
+                players.add(newPlayerInfoData.newInstance(parameters.toArray()));
             }
-            parameters.add(profile);
-            parameters.add(entry.getLatency());
-            parameters.add(int2GameMode(entry.getGameMode()));
-            parameters.add(entry.getDisplayName() == null ? null : nms.toNMSComponent(entry.getDisplayName(), clientVersion));
-            if (nms.getMinorVersion() >= 19) parameters.add(null);
-            players.add(newPlayerInfoData.newInstance(parameters.toArray()));
         }
         PLAYERS.set(packet, players);
         return packet;
     }
 
+    private @NotNull GameProfile createProfile(@NotNull Entry entry) {
+        GameProfile profile = new GameProfile(entry.getUniqueId(), entry.getName());
+        if (entry.getSkin() != null) profile.getProperties().put(TabList.TEXTURES_PROPERTY,
+                new Property(TabList.TEXTURES_PROPERTY, entry.getSkin().getValue(), entry.getSkin().getSignature()));
+        return profile;
+    }
+
     private Object int2GameMode(int gameMode) {
         switch (gameMode) {
             case 1: return Enum.valueOf(EnumGamemodeClass, "CREATIVE");
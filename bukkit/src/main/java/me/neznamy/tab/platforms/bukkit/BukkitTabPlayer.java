@@ -84,6 +84,7 @@ public class BukkitTabPlayer extends BackendTabPlayer {
     @SneakyThrows
     public void sendPacket(@Nullable Object nmsPacket) {
         if (nmsPacket == null || !getPlayer().isOnline()) return;
+        if (writeWithoutFlush(nmsPacket)) return;
         NMSStorage.getInstance().sendPacket.invoke(playerConnection, nmsPacket);
     }
 
@@ -61,6 +61,14 @@ public class BukkitNameTagX extends BackendNameTagX implements Listener, PacketS
                 () -> getArmorStandManager(respawned).teleport());
     }
 
+    @Override
+    public boolean isListening(@NotNull Class<?> packetClass) {
+        return nms.PacketPlayOutEntity.isAssignableFrom(packetClass) ||
+                PacketPlayOutEntityTeleportStorage.CLASS.isAssignableFrom(packetClass) ||
+                nms.PacketPlayOutNamedEntitySpawn.isAssignableFrom(packetClass) ||
+                PacketPlayOutEntityDestroyStorage.CLASS.isAssignableFrom(packetClass);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     @SneakyThrows
@@ -5,11 +5,11 @@ import lombok.SneakyThrows;
 import lombok.ToString;
 import me.neznamy.tab.platforms.bukkit.nms.storage.nms.NMSStorage;
 import me.neznamy.tab.shared.backend.EntityData;
+import me.neznamy.tab.shared.util.ConstructorAccessor;
+import me.neznamy.tab.shared.util.MethodAccessor;
 import me.neznamy.tab.shared.util.ReflectionUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,10 +21,10 @@ public class DataWatcher implements EntityData {
 
     /** NMS Fields */
     public static Class<?> CLASS;
-    private static Constructor<?> CONSTRUCTOR;
-    private static Method REGISTER;
-    public static Method markDirty;
-    public static Method packDirty;
+    private static ConstructorAccessor CONSTRUCTOR;
+    private static MethodAccessor REGISTER;
+    public static MethodAccessor markDirty;
+    public static MethodAccessor packDirty;
     
     /** Watched data */
     private final Map<Integer, DataWatcherItem> dataValues = new HashMap<>();
@@ -39,17 +39,17 @@ public class DataWatcher implements EntityData {
      *          NMS storage reference
      */
     public static void load(NMSStorage nms) throws NoSuchMethodException {
-        CONSTRUCTOR = ReflectionUtils.getOnlyConstructor(CLASS);
+        CONSTRUCTOR = ConstructorAccessor.of(ReflectionUtils.getOnlyConstructor(CLASS));
         if (nms.getMinorVersion() >= 9) {
-            REGISTER = ReflectionUtils.getMethod(CLASS, new String[]{"register", "a"}, DataWatcherObject.CLASS, Object.class); // {Bukkit, Bukkit 1.18+}
+            REGISTER = MethodAccessor.of(ReflectionUtils.getMethod(CLASS, new String[]{"register", "a"}, DataWatcherObject.CLASS, Object.class)); // {Bukkit, Bukkit 1.18+}
         } else {
-            REGISTER = ReflectionUtils.getMethod(CLASS, new String[]{"func_75682_a", "a"}, int.class, Object.class); // {Thermos 1.7.10, Bukkit}
+            REGISTER = MethodAccessor.of(ReflectionUtils.getMethod(CLASS, new String[]{"func_75682_a", "a"}, int.class, Object.class)); // {Thermos 1.7.10, Bukkit}
         }
         if (nms.getMinorVersion() >= 19) {
-            packDirty = CLASS.getMethod("b");
+            packDirty = MethodAccessor.of(CLASS.getMethod("b"));
         }
         if (nms.is1_19_3Plus()) {
-            markDirty = ReflectionUtils.getOnlyMethod(CLASS, void.class, DataWatcherObject.CLASS);
+            markDirty = MethodAccessor.of(ReflectionUtils.getOnlyMethod(CLASS, void.class, DataWatcherObject.CLASS));
         }
     }
     
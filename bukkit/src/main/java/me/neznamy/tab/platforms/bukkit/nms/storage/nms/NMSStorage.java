@@ -11,6 +11,8 @@ import me.neznamy.tab.platforms.bukkit.scoreboard.PacketScoreboard;
 import me.neznamy.tab.shared.ProtocolVersion;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
 import me.neznamy.tab.shared.util.ComponentCache;
+import me.neznamy.tab.shared.util.FieldAccessor;
+import me.neznamy.tab.shared.util.MethodAccessor;
 import me.neznamy.tab.shared.util.ReflectionUtils;
 import me.neznamy.tab.platforms.bukkit.nms.datawatcher.DataWatcher;
 import me.neznamy.tab.platforms.bukkit.nms.datawatcher.DataWatcherItem;
@@ -21,7 +23,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
 /**
@@ -56,32 +57,32 @@ public abstract class NMSStorage {
     protected Class<?> PlayerConnection;
 
     // Ping field for 1.5.2 - 1.16.5, 1.17+ has Player#getPing()
-    public Field PING;
+    public FieldAccessor PING;
 
-    public Field PLAYER_CONNECTION;
-    public Field NETWORK_MANAGER;
-    public Field CHANNEL;
-    public Method getHandle;
-    public Method sendPacket;
-    public Method getProfile;
+    public FieldAccessor PLAYER_CONNECTION;
+    public FieldAccessor NETWORK_MANAGER;
+    public FieldAccessor CHANNEL;
+    public MethodAccessor getHandle;
+    public MethodAccessor sendPacket;
+    public MethodAccessor getProfile;
 
     /** Chat components */
     public Class<?> IChatBaseComponent;
     protected Class<?> ChatSerializer;
-    public Method ChatSerializer_DESERIALIZE;
+    public MethodAccessor ChatSerializer_DESERIALIZE;
 
     /** Other entity packets */
     public Class<?> PacketPlayOutEntity;
-    public Field PacketPlayOutEntity_ENTITYID;
+    public FieldAccessor PacketPlayOutEntity_ENTITYID;
 
     public Class<?> PacketPlayOutEntityLook;
 
     public Class<?> PacketPlayOutNamedEntitySpawn;
-    public Field PacketPlayOutNamedEntitySpawn_ENTITYID;
+    public FieldAccessor PacketPlayOutNamedEntitySpawn_ENTITYID;
 
     public Object dummyEntity;
 
-    private final ComponentCache<IChatBaseComponent, Object> componentCache = new ComponentCache<>(10000,
+    private final ComponentCache<IChatBaseComponent, Object> componentCache = new ComponentCache<>("nms", 10000,
             (component, clientVersion) -> ChatSerializer_DESERIALIZE.invoke(null, component.toString(clientVersion)));
 
     /**
@@ -92,18 +93,18 @@ public abstract class NMSStorage {
         ProtocolVersion.UNKNOWN_SERVER_VERSION.setMinorVersion(minorVersion); //fixing compatibility with forks that set version field value to "Unknown"
         loadClasses();
         if (minorVersion >= 7) {
-            NETWORK_MANAGER = ReflectionUtils.getOnlyField(PlayerConnection, NetworkManager);
-            sendPacket = ReflectionUtils.getMethods(PlayerConnection, void.class, Packet).get(0);
+            NETWORK_MANAGER = FieldAccessor.of(ReflectionUtils.getOnlyField(PlayerConnection, NetworkManager));
+            sendPacket = MethodAccessor.of(ReflectionUtils.getMethods(PlayerConnection, void.class, Packet).get(0));
         } else {
-            sendPacket = ReflectionUtils.getMethod(PlayerConnection, new String[]{"sendPacket"}, Packet);
+            sendPacket = MethodAccessor.of(ReflectionUtils.getMethod(PlayerConnection, new String[]{"sendPacket"}, Packet));
         }
         if (minorVersion >= 8) {
-            ChatSerializer_DESERIALIZE = ReflectionUtils.getMethod(ChatSerializer, new String[]{"a"}, String.class);
-            CHANNEL = ReflectionUtils.getOnlyField(NetworkManager, Channel.class);
+            ChatSerializer_DESERIALIZE = MethodAccessor.of(ReflectionUtils.getMethod(ChatSerializer, new String[]{"a"}, String.class));
+            CHANNEL = FieldAccessor.of(ReflectionUtils.getOnlyField(NetworkManager, Channel.class));
             try {
-                getProfile = ReflectionUtils.getOnlyMethod(EntityHuman, GameProfile.class);
+                getProfile = MethodAccessor.of(ReflectionUtils.getOnlyMethod(EntityHuman, GameProfile.class));
             } catch (IllegalStateException catServer) {
-                getProfile = ReflectionUtils.getMethod(EntityHuman, new String[] {"getProfile"});
+                getProfile = MethodAccessor.of(ReflectionUtils.getMethod(EntityHuman, new String[] {"getProfile"}));
             }
             Constructor<?> newEntityArmorStand = EntityArmorStand.getConstructor(World, double.class, double.class, double.class);
             Method World_getHandle = Class.forName("org.bukkit.craftbukkit." + serverPackage + ".CraftWorld").getMethod("getHandle");
@@ -113,8 +114,8 @@ public abstract class NMSStorage {
         if (minorVersion >= 9) {
             DataWatcherObject.load();
         }
-        PLAYER_CONNECTION = ReflectionUtils.getOnlyField(EntityPlayer, PlayerConnection);
-        getHandle = Class.forName("org.bukkit.craftbukkit." + serverPackage + ".entity.CraftPlayer").getMethod("getHandle");
+        PLAYER_CONNECTION = FieldAccessor.of(ReflectionUtils.getOnlyField(EntityPlayer, PlayerConnection));
+        getHandle = MethodAccessor.of(Class.forName("org.bukkit.craftbukkit." + serverPackage + ".entity.CraftPlayer").getMethod("getHandle"));
         DataWatcher.load(this);
         DataWatcherItem.load(this);
         DataWatcherHelper.load(this);
@@ -123,13 +124,13 @@ public abstract class NMSStorage {
         PacketPlayOutEntityTeleportStorage.load(this);
         PacketPlayOutSpawnEntityLivingStorage.load(this);
         PacketScoreboard.load(this);
-        PacketPlayOutEntity_ENTITYID = ReflectionUtils.getFields(PacketPlayOutEntity, int.class).get(0);
-        PacketPlayOutNamedEntitySpawn_ENTITYID = ReflectionUtils.getFields(PacketPlayOutNamedEntitySpawn, int.class).get(0);
+        PacketPlayOutEntity_ENTITYID = FieldAccessor.of(ReflectionUtils.getFields(PacketPlayOutEntity, int.class).get(0));
+        PacketPlayOutNamedEntitySpawn_ENTITYID = FieldAccessor.of(ReflectionUtils.getFields(PacketPlayOutNamedEntitySpawn, int.class).get(0));
         if (minorVersion < 17) {
             try {
-                (PING = EntityPlayer.getDeclaredField("ping")).setAccessible(true); // 1.5.2 - 1.16.5
+                PING = FieldAccessor.of(ReflectionUtils.setAccessible(EntityPlayer.getDeclaredField("ping"))); // 1.5.2 - 1.16.5
             } catch (NoSuchFieldException e) {
-                (PING = EntityPlayer.getDeclaredField("field_71138_i")).setAccessible(true); // 1.7.10 Thermos
+                PING = FieldAccessor.of(ReflectionUtils.setAccessible(EntityPlayer.getDeclaredField("field_71138_i"))); // 1.7.10 Thermos
             }
         }
     }
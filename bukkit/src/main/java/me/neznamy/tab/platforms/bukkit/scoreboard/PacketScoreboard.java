@@ -1,5 +1,6 @@
 package me.neznamy.tab.platforms.bukkit.scoreboard;
 
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import me.neznamy.tab.platforms.bukkit.BukkitTabPlayer;
 import me.neznamy.tab.platforms.bukkit.nms.storage.nms.NMSStorage;
@@ -7,14 +8,20 @@ import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.chat.EnumChatFormat;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
 import me.neznamy.tab.shared.platform.Scoreboard;
+import me.neznamy.tab.shared.platform.ViewerCohort;
+import me.neznamy.tab.shared.util.ConstructorAccessor;
+import me.neznamy.tab.shared.util.FieldAccessor;
+import me.neznamy.tab.shared.util.MethodAccessor;
 import me.neznamy.tab.shared.util.ReflectionUtils;
+import org.bukkit.Bukkit;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Scoreboard implementation for Bukkit, which uses packets
@@ -48,110 +55,131 @@ public class PacketScoreboard extends Scoreboard<BukkitTabPlayer> {
     public static Class<?> Scoreboard;
     public static Class<?> IScoreboardCriteria;
     private static Object emptyScoreboard;
-    private static Field IScoreboardCriteria_self;
+    private static FieldAccessor IScoreboardCriteria_self;
 
     // PacketPlayOutScoreboardDisplayObjective
     public static Class<?> DisplayObjectiveClass;
-    private static Constructor<?> newDisplayObjective;
-    public static Field DisplayObjective_POSITION;
-    public static Field DisplayObjective_OBJECTIVE_NAME;
+    private static ConstructorAccessor newDisplayObjective;
+    public static FieldAccessor DisplayObjective_POSITION;
+    public static FieldAccessor DisplayObjective_OBJECTIVE_NAME;
 
     // PacketPlayOutScoreboardScore
     public static Class<?> ScorePacketClass;
     public static Class<?> ScoreboardScoreClass;
     public static Class<Enum> EnumScoreboardAction;
-    private static Constructor<?> newScorePacket_1_13;
-    private static Constructor<?> newScorePacket_String;
-    private static Constructor<?> newScorePacket;
-    private static Constructor<?> newScoreboardScore;
-    public static Method ScoreboardScore_setScore;
+    private static ConstructorAccessor newScorePacket_1_13;
+    private static ConstructorAccessor newScorePacket_String;
+    private static ConstructorAccessor newScorePacket;
+    private static ConstructorAccessor newScoreboardScore;
+    public static MethodAccessor ScoreboardScore_setScore;
 
     // PacketPlayOutScoreboardObjective
     public static Class<?> ObjectivePacketClass;
-    private static Constructor<?> newObjectivePacket;
-    public static Field Objective_OBJECTIVE_NAME;
-    public static Field Objective_METHOD;
-    private static Field Objective_RENDER_TYPE;
-    private static Field Objective_DISPLAY_NAME;
+    private static ConstructorAccessor newObjectivePacket;
+    public static FieldAccessor Objective_OBJECTIVE_NAME;
+    public static FieldAccessor Objective_METHOD;
+    private static FieldAccessor Objective_RENDER_TYPE;
+    private static FieldAccessor Objective_DISPLAY_NAME;
     public static Class<Enum> EnumScoreboardHealthDisplay;
     public static Class<?> ScoreboardObjective;
-    private static Constructor<?> newScoreboardObjective;
+    private static ConstructorAccessor newScoreboardObjective;
 
     // PacketPlayOutScoreboardTeamStorage
     public static Class<?> TeamPacketClass;
-    private static Constructor<?> newTeamPacket;
-    private static Method TeamPacketConstructor_of;
-    private static Method TeamPacketConstructor_ofBoolean;
-    public static Field TeamPacket_NAME;
-    public static Field TeamPacket_ACTION;
-    public static Field TeamPacket_PLAYERS;
+    private static ConstructorAccessor newTeamPacket;
+    private static MethodAccessor TeamPacketConstructor_of;
+    private static MethodAccessor TeamPacketConstructor_ofBoolean;
+    public static FieldAccessor TeamPacket_NAME;
+    public static FieldAccessor TeamPacket_ACTION;
+    public static FieldAccessor TeamPacket_PLAYERS;
     public static Class<Enum> EnumNameTagVisibility;
     public static Class<Enum> EnumTeamPush;
     public static Class<?> ScoreboardTeam;
-    private static Constructor<?> newScoreboardTeam;
-    private static Method ScoreboardTeam_getPlayerNameSet;
-    public static Method ScoreboardTeam_setNameTagVisibility;
-    private static Method ScoreboardTeam_setCollisionRule;
-    public static Method ScoreboardTeam_setPrefix;
-    public static Method ScoreboardTeam_setSuffix;
-    private static Method ScoreboardTeam_setColor;
-    public static Method ScoreboardTeam_setAllowFriendlyFire;
-    public static Method ScoreboardTeam_setCanSeeFriendlyInvisibles;
+    private static ConstructorAccessor newScoreboardTeam;
+    private static MethodAccessor ScoreboardTeam_getPlayerNameSet;
+    public static MethodAccessor ScoreboardTeam_setNameTagVisibility;
+    private static MethodAccessor ScoreboardTeam_setCollisionRule;
+    public static MethodAccessor ScoreboardTeam_setPrefix;
+    public static MethodAccessor ScoreboardTeam_setSuffix;
+    private static MethodAccessor ScoreboardTeam_setColor;
+    public static MethodAccessor ScoreboardTeam_setAllowFriendlyFire;
+    public static MethodAccessor ScoreboardTeam_setCanSeeFriendlyInvisibles;
+
+    /**
+     * Last team update packet built for each viewer cohort. When the same team update is sent
+     * to many viewers in a row, the packet is only built once per cohort and the same instance
+     * is written to all of them. Only the last packet is remembered, so packets are only shared
+     * when identical values are sent to viewers back to back. Only update packets are shared,
+     * register packets contain player list, which is modified per viewer by anti-override,
+     * and other packets are rare.
+     */
+    private static final AtomicReferenceArray<SharedPacket> lastTeamPackets = new AtomicReferenceArray<>(ViewerCohort.VALUES.length);
+
+    /** Last objective update packet built for each viewer cohort */
+    private static final AtomicReferenceArray<SharedPacket> lastObjectivePackets = new AtomicReferenceArray<>(ViewerCohort.VALUES.length);
 
     public static void load(NMSStorage nms) throws ReflectiveOperationException {
         PacketScoreboard.nms = nms;
         emptyScoreboard = Scoreboard.getConstructor().newInstance();
-        IScoreboardCriteria_self = ReflectionUtils.getFields(IScoreboardCriteria, IScoreboardCriteria).get(0);
-        newDisplayObjective = DisplayObjectiveClass.getConstructor(int.class, ScoreboardObjective);
-        DisplayObjective_POSITION = ReflectionUtils.getOnlyField(DisplayObjectiveClass, int.class);
-        DisplayObjective_OBJECTIVE_NAME = ReflectionUtils.getOnlyField(DisplayObjectiveClass, String.class);
-        newScoreboardObjective = ReflectionUtils.getOnlyConstructor(ScoreboardObjective);
-        Objective_OBJECTIVE_NAME = ReflectionUtils.getFields(ObjectivePacketClass, String.class).get(0);
+        IScoreboardCriteria_self = FieldAccessor.of(ReflectionUtils.getFields(IScoreboardCriteria, IScoreboardCriteria).get(0));
+        newDisplayObjective = ConstructorAccessor.of(DisplayObjectiveClass.getConstructor(int.class, ScoreboardObjective));
+        DisplayObjective_POSITION = FieldAccessor.of(ReflectionUtils.getOnlyField(DisplayObjectiveClass, int.class));
+        DisplayObjective_OBJECTIVE_NAME = FieldAccessor.of(ReflectionUtils.getOnlyField(DisplayObjectiveClass, String.class));
+        newScoreboardObjective = ConstructorAccessor.of(ReflectionUtils.getOnlyConstructor(ScoreboardObjective));
+        Objective_OBJECTIVE_NAME = FieldAccessor.of(ReflectionUtils.getFields(ObjectivePacketClass, String.class).get(0));
         List<Field> list = ReflectionUtils.getFields(ObjectivePacketClass, int.class);
-        Objective_METHOD = list.get(list.size()-1);
-        newScoreboardScore = ScoreboardScoreClass.getConstructor(Scoreboard, ScoreboardObjective, String.class);
-        newScoreboardTeam = ScoreboardTeam.getConstructor(Scoreboard, String.class);
-        TeamPacket_NAME = ReflectionUtils.getFields(TeamPacketClass, String.class).get(0);
-        TeamPacket_ACTION = ReflectionUtils.getInstanceFields(TeamPacketClass, int.class).get(0);
-        TeamPacket_PLAYERS = ReflectionUtils.getOnlyField(TeamPacketClass, Collection.class);
-        ScoreboardTeam_getPlayerNameSet = ReflectionUtils.getOnlyMethod(ScoreboardTeam, Collection.class);
-        ScoreboardScore_setScore = ReflectionUtils.getMethod(ScoreboardScoreClass, new String[] {"func_96647_c", "setScore", "b", "c"}, int.class); // {Thermos, 1.5.1 - 1.17.1, 1.18+, 1.5}
-        ScoreboardTeam_setAllowFriendlyFire = ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_96660_a", "setAllowFriendlyFire", "a"}, boolean.class); // {Thermos, 1.5.1+, 1.5 & 1.18+}
-        ScoreboardTeam_setCanSeeFriendlyInvisibles = ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_98300_b", "setCanSeeFriendlyInvisibles", "b"}, boolean.class); // {Thermos, 1.5.1+, 1.5 & 1.18+}
+        Objective_METHOD = FieldAccessor.of(list.get(list.size()-1));
+        newScoreboardScore = ConstructorAccessor.of(ScoreboardScoreClass.getConstructor(Scoreboard, ScoreboardObjective, String.class));
+        newScoreboardTeam = ConstructorAccessor.of(ScoreboardTeam.getConstructor(Scoreboard, String.class));
+        TeamPacket_NAME = FieldAccessor.of(ReflectionUtils.getFields(TeamPacketClass, String.class).get(0));
+        TeamPacket_ACTION = FieldAccessor.of(ReflectionUtils.getInstanceFields(TeamPacketClass, int.class).get(0));
+        TeamPacket_PLAYERS = FieldAccessor.of(ReflectionUtils.getOnlyField(TeamPacketClass, Collection.class));
+        ScoreboardTeam_getPlayerNameSet = MethodAccessor.of(ReflectionUtils.getOnlyMethod(ScoreboardTeam, Collection.class));
+        ScoreboardScore_setScore = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardScoreClass, new String[] {"func_96647_c", "setScore", "b", "c"}, int.class)); // {Thermos, 1.5.1 - 1.17.1, 1.18+, 1.5}
+        ScoreboardTeam_setAllowFriendlyFire = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_96660_a", "setAllowFriendlyFire", "a"}, boolean.class)); // {Thermos, 1.5.1+, 1.5 & 1.18+}
+        ScoreboardTeam_setCanSeeFriendlyInvisibles = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_98300_b", "setCanSeeFriendlyInvisibles", "b"}, boolean.class)); // {Thermos, 1.5.1+, 1.5 & 1.18+}
         if (nms.getMinorVersion() >= 13) {
-            newScorePacket_1_13 = ScorePacketClass.getConstructor(EnumScoreboardAction, String.class, String.class, int.class);
-            newObjectivePacket = ObjectivePacketClass.getConstructor(ScoreboardObjective, int.class);
-            Objective_DISPLAY_NAME = ReflectionUtils.getOnlyField(ObjectivePacketClass, nms.IChatBaseComponent);
-            ScoreboardTeam_setColor = ReflectionUtils.getOnlyMethod(ScoreboardTeam, void.class, nms.EnumChatFormat);
-            ScoreboardTeam_setPrefix = ReflectionUtils.getMethod(ScoreboardTeam, new String[]{"setPrefix", "b"}, nms.IChatBaseComponent); // {1.17.1-, 1.18+}
-            ScoreboardTeam_setSuffix = ReflectionUtils.getMethod(ScoreboardTeam, new String[]{"setSuffix", "c"}, nms.IChatBaseComponent); // {1.17.1-, 1.18+}
+            newScorePacket_1_13 = ConstructorAccessor.of(ScorePacketClass.getConstructor(EnumScoreboardAction, String.class, String.class, int.class));
+            newObjectivePacket = ConstructorAccessor.of(ObjectivePacketClass.getConstructor(ScoreboardObjective, int.class));
+            Objective_DISPLAY_NAME = FieldAccessor.of(ReflectionUtils.getOnlyField(ObjectivePacketClass, nms.IChatBaseComponent));
+            ScoreboardTeam_setColor = MethodAccessor.of(ReflectionUtils.getOnlyMethod(ScoreboardTeam, void.class, nms.EnumChatFormat));
+            ScoreboardTeam_setPrefix = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[]{"setPrefix", "b"}, nms.IChatBaseComponent)); // {1.17.1-, 1.18+}
+            ScoreboardTeam_setSuffix = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[]{"setSuffix", "c"}, nms.IChatBaseComponent)); // {1.17.1-, 1.18+}
         } else {
-            newScorePacket_String = ScorePacketClass.getConstructor(String.class);
-            newObjectivePacket = ObjectivePacketClass.getConstructor();
-            Objective_DISPLAY_NAME = ReflectionUtils.getFields(ObjectivePacketClass, String.class).get(1);
-            ScoreboardTeam_setPrefix = ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_96666_b", "setPrefix", "b"}, String.class); // {Thermos, 1.5.1+, 1.5}
-            ScoreboardTeam_setSuffix = ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_96662_c", "setSuffix", "c"}, String.class); // {Thermos, 1.5.1+, 1.5}
+            newScorePacket_String = ConstructorAccessor.of(ScorePacketClass.getConstructor(String.class));
+            newObjectivePacket = ConstructorAccessor.of(ObjectivePacketClass.getConstructor());
+            Objective_DISPLAY_NAME = FieldAccessor.of(ReflectionUtils.getFields(ObjectivePacketClass, String.class).get(1));
+            ScoreboardTeam_setPrefix = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_96666_b", "setPrefix", "b"}, String.class)); // {Thermos, 1.5.1+, 1.5}
+            ScoreboardTeam_setSuffix = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"func_96662_c", "setSuffix", "c"}, String.class)); // {Thermos, 1.5.1+, 1.5}
             if (nms.getMinorVersion() >= 8) {
-                newScorePacket = ScorePacketClass.getConstructor(ScoreboardScoreClass);
-                Objective_RENDER_TYPE = ReflectionUtils.getOnlyField(ObjectivePacketClass, EnumScoreboardHealthDisplay);
+                newScorePacket = ConstructorAccessor.of(ScorePacketClass.getConstructor(ScoreboardScoreClass));
+                Objective_RENDER_TYPE = FieldAccessor.of(ReflectionUtils.getOnlyField(ObjectivePacketClass, EnumScoreboardHealthDisplay));
             } else {
-                newScorePacket = ScorePacketClass.getConstructor(ScoreboardScoreClass, int.class);
+                newScorePacket = ConstructorAccessor.of(ScorePacketClass.getConstructor(ScoreboardScoreClass, int.class));
             }
         }
         if (nms.getMinorVersion() >= 8) {
-            ScoreboardTeam_setNameTagVisibility = ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"setNameTagVisibility", "a"}, EnumNameTagVisibility); // {1.8.1+, 1.8 & 1.18+}
+            ScoreboardTeam_setNameTagVisibility = MethodAccessor.of(ReflectionUtils.getMethod(ScoreboardTeam, new String[] {"setNameTagVisibility", "a"}, EnumNameTagVisibility)); // {1.8.1+, 1.8 & 1.18+}
         }
         if (nms.getMinorVersion() >= 9) {
-            ScoreboardTeam_setCollisionRule = ReflectionUtils.getOnlyMethod(ScoreboardTeam, void.class, EnumTeamPush);
+            ScoreboardTeam_setCollisionRule = MethodAccessor.of(ReflectionUtils.getOnlyMethod(ScoreboardTeam, void.class, EnumTeamPush));
         }
         if (nms.getMinorVersion() >= 17) {
-            TeamPacketConstructor_of = ReflectionUtils.getOnlyMethod(TeamPacketClass, TeamPacketClass, ScoreboardTeam);
-            TeamPacketConstructor_ofBoolean = ReflectionUtils.getOnlyMethod(TeamPacketClass, TeamPacketClass, ScoreboardTeam, boolean.class);
+            TeamPacketConstructor_of = MethodAccessor.of(ReflectionUtils.getOnlyMethod(TeamPacketClass, TeamPacketClass, ScoreboardTeam));
+            TeamPacketConstructor_ofBoolean = MethodAccessor.of(ReflectionUtils.getOnlyMethod(TeamPacketClass, TeamPacketClass, ScoreboardTeam, boolean.class));
         } else {
-            newTeamPacket = TeamPacketClass.getConstructor(ScoreboardTeam, int.class);
+            newTeamPacket = ConstructorAccessor.of(TeamPacketClass.getConstructor(ScoreboardTeam, int.class));
         }
     }
 
+    /**
+     * Whether update packets may be shared across viewers. Disabled by default, because packet
+     * listeners of other plugins may modify the packet per viewer, which would leak into packets
+     * of other viewers. Never enabled if ProtocolLib is installed.
+     */
+    private final boolean sharePackets = TAB.getInstance().getConfiguration().getSecretOption("share-scoreboard-packets", false)
+            && Bukkit.getPluginManager().getPlugin("ProtocolLib") == null;
+
     public PacketScoreboard(BukkitTabPlayer player) {
         super(player);
     }
@@ -165,21 +193,22 @@ public class PacketScoreboard extends Scoreboard<BukkitTabPlayer> {
     @Override
     @SneakyThrows
     public void registerObjective0(@NotNull String objectiveName, @NotNull String title, boolean hearts) {
-        player.sendPacket(buildObjective(0, objectiveName, title, hearts));
+        player.sendPacket(buildObjective0(0, objectiveName, title, hearts));
     }
 
     @Override
     public void unregisterObjective0(@NotNull String objectiveName) {
-        player.sendPacket(buildObjective(1, objectiveName, "", false));
+        player.sendPacket(buildObjective0(1, objectiveName, "", false));
     }
 
     @Override
     public void updateObjective0(@NotNull String objectiveName, @NotNull String title, boolean hearts) {
-        player.sendPacket(buildObjective(2, objectiveName, title, hearts));
+        player.sendPacket(getSharedPacket(lastObjectivePackets, new Object[]{objectiveName, title, hearts},
+                () -> buildObjective0(2, objectiveName, title, hearts)));
     }
 
     @SneakyThrows
-    private Object buildObjective(int action, String objectiveName, String title, boolean hearts) {
+    private Object buildObjective0(int action, String objectiveName, String title, boolean hearts) {
         if (nms.getMinorVersion() >= 13) {
             return newObjectivePacket.newInstance(
                     newScoreboardObjective.newInstance(null, objectiveName, null,
@@ -231,12 +260,14 @@ public class PacketScoreboard extends Scoreboard<BukkitTabPlayer> {
     @SneakyThrows
     public void updateTeam0(@NotNull String name, @NotNull String prefix, @NotNull String suffix,
                             @NotNull NameVisibility visibility, @NotNull CollisionRule collision, int options) {
-        Object team = createTeam(name, prefix, suffix, visibility, collision, options);
-        if (nms.getMinorVersion() >= 17) {
-            player.sendPacket(TeamPacketConstructor_ofBoolean.invoke(null, team, false));
-        } else {
-            player.sendPacket(newTeamPacket.newInstance(team, 2));
-        }
+        player.sendPacket(getSharedPacket(lastTeamPackets, new Object[]{name, prefix, suffix, visibility, collision, options}, () -> {
+            Object team = createTeam(name, prefix, suffix, visibility, collision, options);
+            if (nms.getMinorVersion() >= 17) {
+                return TeamPacketConstructor_ofBoolean.invoke(null, team, false);
+            } else {
+                return newTeamPacket.newInstance(team, 2);
+            }
+        }));
     }
 
     @SneakyThrows
@@ -285,6 +316,31 @@ public class PacketScoreboard extends Scoreboard<BukkitTabPlayer> {
         }
     }
 
+    /**
+     * Returns packet with specified content for cohort of this player. If the last packet
+     * built for the cohort has the same content, it is returned instead of building a new one.
+     * If sharing of packets is disabled, a new packet is always built.
+     *
+     * @param   lastPackets
+     *          Last built packets of each cohort
+     * @param   key
+     *          Everything the packet content depends on besides client version
+     * @param   builder
+     *          Function building the packet
+     * @return  Packet with specified content
+     */
+    @SneakyThrows
+    private Object getSharedPacket(@NotNull AtomicReferenceArray<SharedPacket> lastPackets, @NotNull Object[] key,
+                                   @NotNull Callable<Object> builder) {
+        if (!sharePackets) return builder.call();
+        int cohort = ViewerCohort.of(player.getVersion()).ordinal();
+        SharedPacket last = lastPackets.get(cohort);
+        if (last != null && Arrays.equals(last.key, key)) return last.packet;
+        Object packet = builder.call();
+        lastPackets.set(cohort, new SharedPacket(key, packet));
+        return packet;
+    }
+
     /**
      * Creates a new Scoreboard Objective with given name.
      *
@@ -309,4 +365,14 @@ public class PacketScoreboard extends Scoreboard<BukkitTabPlayer> {
                 IScoreboardCriteria_self.get(null)
         );
     }
+
+    /**
+     * Built packet with content it was built from
+     */
+    @RequiredArgsConstructor
+    private static class SharedPacket {
+
+        @NotNull private final Object[] key;
+        @NotNull private final Object packet;
+    }
 }
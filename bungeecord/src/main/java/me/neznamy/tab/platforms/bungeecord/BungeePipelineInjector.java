@@ -13,6 +13,7 @@ import me.neznamy.tab.shared.features.redis.RedisSupport;
 import me.neznamy.tab.shared.features.redis.feature.RedisTeams;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
+import me.neznamy.tab.shared.CpuCounter;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.TabConstants;
 import me.neznamy.tab.shared.features.injection.NettyPipelineInjector;
@@ -52,6 +53,10 @@ public class BungeePipelineInjector extends NettyPipelineInjector {
     private final Class<? extends DefinedPacket>[] extraPacketClasses = new Class[]{Team.class, ScoreboardDisplay.class, ScoreboardObjective.class};
     private final Supplier<DefinedPacket>[] extraPacketSuppliers = new Supplier[]{Team::new, ScoreboardDisplay::new, ScoreboardObjective::new};
 
+    /** Counter for measuring time spent deserializing packets */
+    private final CpuCounter deserializingCounter = TAB.getInstance().getCPUManager().counter(
+            TabConstants.Feature.PACKET_DESERIALIZING, TabConstants.CpuUsageCategory.BYTE_BUF);
+
     @Override
     public Function<TabPlayer, ChannelDuplexHandler> getChannelFunction() {
         return byteBufDeserialization ? DeserializableBungeeChannelDuplexHandler::new : TabChannelDuplexHandler::new;
@@ -82,23 +87,23 @@ public class BungeePipelineInjector extends NettyPipelineInjector {
     }
 
     @Override
-    public boolean isDisplayObjective(@NotNull Object packet) {
-        return packet instanceof ScoreboardDisplay;
+    public boolean isDisplayObjective(@NotNull Class<?> packetClass) {
+        return ScoreboardDisplay.class.isAssignableFrom(packetClass);
     }
 
     @Override
-    public boolean isObjective(@NotNull Object packet) {
-        return packet instanceof ScoreboardObjective;
+    public boolean isObjective(@NotNull Class<?> packetClass) {
+        return ScoreboardObjective.class.isAssignableFrom(packetClass);
     }
 
     @Override
-    public boolean isTeam(@NotNull Object packet) {
-        return packet instanceof Team;
+    public boolean isTeam(@NotNull Class<?> packetClass) {
+        return Team.class.isAssignableFrom(packetClass);
     }
 
     @Override
-    public boolean isPlayerInfo(@NotNull Object packet) {
-        return packet instanceof PlayerListItem || packet instanceof PlayerListItemUpdate;
+    public boolean isPlayerInfo(@NotNull Class<?> packetClass) {
+        return PlayerListItem.class.isAssignableFrom(packetClass) || PlayerListItemUpdate.class.isAssignableFrom(packetClass);
     }
 
     @Override
@@ -181,7 +186,7 @@ public class BungeePipelineInjector extends NettyPipelineInjector {
         public void write(ChannelHandlerContext context, Object packet, ChannelPromise channelPromise) {
             long time = System.nanoTime();
             Object modifiedPacket = packet instanceof ByteBuf ? deserialize((ByteBuf) packet) : packet;
-            TAB.getInstance().getCPUManager().addTime(TabConstants.Feature.PACKET_DESERIALIZING, TabConstants.CpuUsageCategory.BYTE_BUF, System.nanoTime()-time);
+            deserializingCounter.add(System.nanoTime()-time);
             super.write(context, modifiedPacket, channelPromise);
         }
 
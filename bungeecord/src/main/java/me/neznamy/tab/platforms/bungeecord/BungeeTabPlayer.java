@@ -79,6 +79,7 @@ public class BungeeTabPlayer extends ProxyTabPlayer {
     }
 
     public void sendPacket(@NotNull Object nmsPacket) {
+        if (writeWithoutFlush(nmsPacket)) return;
         getPlayer().unsafe().sendPacket((DefinedPacket) nmsPacket);
     }
 
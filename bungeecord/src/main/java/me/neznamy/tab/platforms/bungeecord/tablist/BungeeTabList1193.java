@@ -3,60 +3,69 @@ package me.neznamy.tab.platforms.bungeecord.tablist;
 import lombok.RequiredArgsConstructor;
 import me.neznamy.tab.platforms.bungeecord.BungeeTabPlayer;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
-import me.neznamy.tab.shared.platform.TabList;
+import me.neznamy.tab.shared.platform.BufferedTabList;
 import net.md_5.bungee.UserConnection;
 import net.md_5.bungee.protocol.Property;
 import net.md_5.bungee.protocol.packet.PlayerListItem.Item;
 import net.md_5.bungee.protocol.packet.PlayerListItemRemove;
 import net.md_5.bungee.protocol.packet.PlayerListItemUpdate;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.EnumSet;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * TabList handler for 1.19.3+ players using the new tab list packets.
  * Because BungeeCord does not have a TabList API, we need to use packets.
  * They are sent using an internal BungeeCord method that keeps track of them,
  * so they are removed on server switch to secure parity with Velocity.
+ * Buffered entry updates are sent in a single packet for each combination of actions.
  */
 @RequiredArgsConstructor
-public class BungeeTabList1193 implements TabList {
+public class BungeeTabList1193 extends BufferedTabList {
+
+    /** Packet actions matching entry update actions */
+    private static final Map<Action, PlayerListItemUpdate.Action> ACTIONS = new EnumMap<>(Action.class);
+
+    static {
+        ACTIONS.put(Action.UPDATE_DISPLAY_NAME, PlayerListItemUpdate.Action.UPDATE_DISPLAY_NAME);
+        ACTIONS.put(Action.UPDATE_LATENCY, PlayerListItemUpdate.Action.UPDATE_LATENCY);
+        ACTIONS.put(Action.UPDATE_GAME_MODE, PlayerListItemUpdate.Action.UPDATE_GAMEMODE);
+    }
 
     /** Player this TabList belongs to */
     private final BungeeTabPlayer player;
 
     @Override
-    public void removeEntry(@NotNull UUID entry) {
+    protected void sendRemoveEntry(@NotNull UUID entry) {
         PlayerListItemRemove remove = new PlayerListItemRemove();
         remove.setUuids(new UUID[]{entry});
         ((UserConnection)player.getPlayer()).getTabListHandler().onUpdate(remove);
     }
 
     @Override
-    public void updateDisplayName(@NotNull UUID entry, @Nullable IChatBaseComponent displayName) {
-        Item item = item(entry);
-        item.setDisplayName(displayName == null ? null : displayName.toString(player.getVersion()));
-        sendPacket(EnumSet.of(PlayerListItemUpdate.Action.UPDATE_DISPLAY_NAME), item);
-    }
-
-    @Override
-    public void updateLatency(@NotNull UUID entry, int latency) {
-        Item item = item(entry);
-        item.setPing(latency);
-        sendPacket(EnumSet.of(PlayerListItemUpdate.Action.UPDATE_LATENCY), item);
-    }
-
-    @Override
-    public void updateGameMode(@NotNull UUID entry, int gameMode) {
-        Item item = item(entry);
-        item.setGamemode(gameMode);
-        sendPacket(EnumSet.of(PlayerListItemUpdate.Action.UPDATE_GAMEMODE), item);
+    protected void sendUpdates(@NotNull Collection<EntryUpdate> updates) {
+        for (Map.Entry<EnumSet<Action>, List<EntryUpdate>> group : groupByActions(updates).entrySet()) {
+            EnumSet<PlayerListItemUpdate.Action> actions = EnumSet.noneOf(PlayerListItemUpdate.Action.class);
+            for (Action action : group.getKey()) {
+                actions.add(ACTIONS.get(action));
+            }
+            Item[] items = new Item[group.getValue().size()];
+            for (int i=0; i<items.length; i++) {
+                EntryUpdate update = group.getValue().get(i);
+                Item item = item(update.getUniqueId());
+                if (update.getActions().contains(Action.UPDATE_DISPLAY_NAME)) {
+                    item.setDisplayName(update.getDisplayName() == null ? null : update.getDisplayName().toString(player.getVersion()));
+                }
+                if (update.getActions().contains(Action.UPDATE_LATENCY)) item.setPing(update.getLatency());
+                if (update.getActions().contains(Action.UPDATE_GAME_MODE)) item.setGamemode(update.getGameMode());
+                items[i] = item;
+            }
+            sendPacket(actions, items);
+        }
     }
 
     @Override
-    public void addEntry(@NotNull Entry entry) {
+    protected void sendAddEntry(@NotNull Entry entry) {
         Item item = item(entry.getUniqueId());
         if (entry.getDisplayName() != null) item.setDisplayName(entry.getDisplayName().toString(player.getVersion()));
         item.setGamemode(entry.getGameMode());
@@ -68,7 +77,7 @@ public class BungeeTabList1193 implements TabList {
             item.setProperties(new Property[0]);
         }
         item.setUsername(entry.getName());
-        sendPacket(EnumSet.allOf(PlayerListItemUpdate.Action.class), item);
+        sendPacket(EnumSet.allOf(PlayerListItemUpdate.Action.class), new Item[]{item});
     }
 
     public @NotNull Item item(@NotNull UUID id) {
@@ -77,10 +86,10 @@ public class BungeeTabList1193 implements TabList {
         return item;
     }
 
-    private void sendPacket(@NotNull EnumSet<PlayerListItemUpdate.Action> actions, @NotNull Item item) {
+    private void sendPacket(@NotNull EnumSet<PlayerListItemUpdate.Action> actions, @NotNull Item[] items) {
         PlayerListItemUpdate packet = new PlayerListItemUpdate();
         packet.setActions(actions);
-        packet.setItems(new Item[]{item});
+        packet.setItems(items);
         ((UserConnection)player.getPlayer()).getTabListHandler().onUpdate(packet);
     }
 
@@ -0,0 +1,79 @@
+package me.neznamy.tab.shared;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-registered CPU usage counter of a single feature and usage type (or a placeholder).
+ * Features obtain the counter once using {@link CpuManager#counter(String, String)}
+ * and add measured time to it directly, avoiding any map lookups when measuring.
+ */
+@RequiredArgsConstructor
+public class CpuCounter {
+
+    /** Name of feature this counter belongs to, placeholder identifier for placeholder counters */
+    @Getter @NonNull private final String feature;
+
+    /** Usage type of the feature, {@code null} for placeholder counters */
+    @Getter @Nullable private final String type;
+
+    /** Time in nanoseconds used in current time period */
+    private final LongAdder current = new LongAdder();
+
+    /** Time in nanoseconds used in previous time period */
+    @Getter private volatile long previous;
+
+    /** Distribution of measured execution times in current time period */
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /** Latency statistics of previous time period */
+    @Getter @NonNull private volatile LatencyHistogram.Snapshot previousLatency = LatencyHistogram.EMPTY;
+
+    /**
+     * Adds used time of a single whole execution to the current time period
+     * and records it as a latency sample
+     *
+     * @param   nanoseconds
+     *          time to add
+     */
+    public void add(long nanoseconds) {
+        current.add(nanoseconds);
+        histogram.record(nanoseconds);
+    }
+
+    /**
+     * Adds used time to the current time period without recording a latency sample.
+     * Used for compensating time which is counted under a different counter and for
+     * slices of an operation, whose latency is recorded using {@link #recordLatency(long)}
+     * once the whole operation is done.
+     *
+     * @param   nanoseconds
+     *          time to add, may be negative
+     */
+    public void addUsage(long nanoseconds) {
+        current.add(nanoseconds);
+    }
+
+    /**
+     * Records latency sample of a whole operation, whose time was already
+     * added to the current time period using {@link #addUsage(long)}
+     *
+     * @param   nanoseconds
+     *          time the whole operation took
+     */
+    public void recordLatency(long nanoseconds) {
+        histogram.record(nanoseconds);
+    }
+
+    /**
+     * Ends current time period, making its time the previous period and starting a new one
+     */
+    void rollOver() {
+        previous = current.sumThenReset();
+        previousLatency = histogram.rollOver();
+    }
+}
@@ -3,11 +3,21 @@ package me.neznamy.tab.shared;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import lombok.Setter;
+import me.neznamy.tab.api.cpu.LatencyStatistics;
 import me.neznamy.tab.shared.features.types.TabFeature;
+import me.neznamy.tab.shared.placeholders.LoadGovernor;
+import me.neznamy.tab.shared.platform.TabPlayer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 
 /**
@@ -19,41 +29,58 @@ public class CpuManager {
 
     private final long TIME_PERCENT = TimeUnit.SECONDS.toNanos(1) / UPDATE_RATE_SECONDS;
 
-    /** Active time in current time period saved as nanoseconds from features */
-    private volatile Map<String, Map<String, Long>> featureUsageCurrent = new ConcurrentHashMap<>();
+    /** Registered counters of features by feature name and usage type */
+    private final Map<String, Map<String, CpuCounter>> featureCounters = new ConcurrentHashMap<>();
 
-    /** Active time in current time period saved as nanoseconds from placeholders */
-    private volatile Map<String, Long> placeholderUsageCurrent = new ConcurrentHashMap<>();
-
-    /** Active time in previous time period saved as nanoseconds from features */
-    private volatile Map<String, Map<String, Long>> featureUsagePrevious = new HashMap<>();
-
-    /** Active time in previous time period saved as nanoseconds from placeholders */
-    private volatile Map<String, Long> placeholderUsagePrevious = new HashMap<>();
+    /** Registered counters of placeholders by placeholder identifier */
+    private final Map<String, CpuCounter> placeholderCounters = new ConcurrentHashMap<>();
 
     // Scheduler for scheduling delayed and repeating tasks
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
             new ThreadFactoryBuilder().setNameFormat("TAB Processing Thread").build());
 
+    /**
+     * Worker shards for processing per-player work in parallel, {@code null} if
+     * only the main thread is used. Each player is always processed by the same shard.
+     */
+    @Nullable private volatile ExecutorService[] shards;
+
+    /** Flags of shards still processing a sharded task by feature and type of the task */
+    private final Map<String, AtomicBoolean[]> busyShards = new ConcurrentHashMap<>();
+
+    /**
+     * Parallelism of the fork-join pool, leaving one processor for the server's main thread.
+     * If it is {@code 1}, parallel tasks run on the calling thread and the pool is never created.
+     */
+    private final int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * Fork-join pool for evaluating thread-safe per-player work in parallel,
+     * created on first parallel task, {@code null} until then.
+     */
+    @Nullable private volatile ForkJoinPool parallelPool;
+
     /** Tasks submitted to main thread before plugin was fully enabled */
     private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
 
     /** Enabled flag used to queue incoming tasks if plugin is not enabled yet */
     private volatile boolean enabled = false;
 
+    /** Governor receiving total CPU usage of features on every time period roll over */
+    @Setter @Nullable private volatile LoadGovernor loadGovernor;
+
     /**
      * Constructs new instance and starts repeating task that resets values in configured interval
      */
     public CpuManager() {
         startRepeatingTask((int) TimeUnit.SECONDS.toMillis(UPDATE_RATE_SECONDS), () -> {
-            featureUsagePrevious = Collections.unmodifiableMap(featureUsageCurrent);
-            placeholderUsagePrevious = Collections.unmodifiableMap(placeholderUsageCurrent);
-
-            featureUsageCurrent = new ConcurrentHashMap<>();
-            placeholderUsageCurrent = new ConcurrentHashMap<>();
+            for (Map<String, CpuCounter> counters : featureCounters.values()) {
+                counters.values().forEach(CpuCounter::rollOver);
+            }
+            placeholderCounters.values().forEach(CpuCounter::rollOver);
 
-            for (Entry<String, Long> entry : placeholderUsagePrevious.entrySet()) {
-                float usagePercent = nanosToPercent(entry.getValue());
+            for (Entry<String, Float> entry : getPlaceholderUsage().entrySet()) {
+                float usagePercent = entry.getValue();
                 if (usagePercent > 30) {
                     TAB.getInstance().sendConsoleMessage("&c[WARN] CPU usage of placeholder " + entry.getKey() +
                             " is " + (int)usagePercent + "%. It will most likely cause problems. Try increasing refresh interval.", true);
@@ -68,6 +95,8 @@ public class CpuManager {
                 TAB.getInstance().sendConsoleMessage("&c[WARN] CPU usage of the plugin is "
                         + (int)featuresTotal + "%. This will cause problems. Check /tab cpu to find out why.", true);
             }
+            LoadGovernor governor = loadGovernor;
+            if (governor != null) governor.update(featuresTotal);
         });
     }
 
@@ -76,12 +105,28 @@ public class CpuManager {
      */
     public void cancelAllTasks() {
         scheduler.shutdownNow();
+        ExecutorService[] shards = this.shards;
+        if (shards != null) {
+            for (ExecutorService shard : shards) shard.shutdownNow();
+        }
+        synchronized (this) {
+            if (parallelPool != null) parallelPool.shutdownNow();
+        }
     }
 
     /**
-     * Marks cpu manager as loaded and submits all queued tasks
+     * Marks cpu manager as loaded, starts worker shards if configured and submits all queued tasks
      */
     public void enable() {
+        int threads = TAB.getInstance().getConfiguration().getProcessingThreads();
+        if (threads > 1 && shards == null) {
+            ExecutorService[] shards = new ExecutorService[threads];
+            for (int i=0; i<threads; i++) {
+                shards[i] = Executors.newSingleThreadExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("TAB Processing Thread #" + (i+1)).build());
+            }
+            this.shards = shards;
+        }
         enabled = true;
 
         Runnable r;
@@ -111,22 +156,23 @@ public class CpuManager {
      * @return cpu usage map of placeholders
      */
     public Map<String, Float> getPlaceholderUsage() {
-        return getUsage(placeholderUsagePrevious);
+        return getUsage(placeholderCounters.values());
     }
 
     /**
-     * Converts nano map to percent and sorts it from highest to lowest usage.
+     * Converts time of counters in previous time period to percent and sorts it
+     * from highest to lowest usage. Counters without any usage are skipped.
      *
-     * @param map map to convert
+     * @param counters counters to convert
      * @return converted and sorted map
      */
-    private @NotNull Map<String, Float> getUsage(@NotNull Map<String, Long> map) {
-        return map
-                .entrySet()
+    private @NotNull Map<String, Float> getUsage(@NotNull Collection<CpuCounter> counters) {
+        return counters
                 .stream()
-                .sorted(Entry.comparingByValue((o1, o2) -> Long.compare(o2, o1)))
+                .filter(c -> c.getPrevious() > 0)
+                .sorted((c1, c2) -> Long.compare(c2.getPrevious(), c1.getPrevious()))
                 .collect(LinkedHashMap::new,
-                        (m, e) -> m.put(e.getKey(), nanosToPercent(e.getValue())),
+                        (m, c) -> m.put(c.getType() == null ? c.getFeature() : c.getType(), nanosToPercent(c.getPrevious())),
                         Map::putAll
                 );
     }
@@ -137,34 +183,46 @@ public class CpuManager {
      * @return map of CPU usage per feature and type
      */
     public @NotNull Map<String, Map<String, Float>> getFeatureUsage() {
-        final Map<String, Map<String, Long>> map = featureUsagePrevious;
-
-        TreeMap<Long, Map.Entry<String, Map<String, Float>>> sorted
-                = new TreeMap<>((o1, o2) -> Long.compare(o2, o1));
-
-        map.forEach((key, val) -> {
-            Set<Map.Entry<String, Long>> entries = val.entrySet();
-            Map<String, Float> percent = new LinkedHashMap<>(entries.size());
-            long sum = entries
-                    .stream()
-                    .sorted(Map.Entry.comparingByValue((o1, o2) -> Long.compare(o2, o1)))
-                    .peek(e -> percent.put(e.getKey(), nanosToPercent(e.getValue())))
-                    .mapToLong(Map.Entry::getValue)
-                    .sum();
-            sorted.put(sum, // Map.entry(key, percent) inline type java9+
-                    new AbstractMap.SimpleImmutableEntry<>(key, percent));
+        List<Map.Entry<Long, Map.Entry<String, Map<String, Float>>>> sorted = new ArrayList<>();
+
+        featureCounters.forEach((key, val) -> {
+            Map<String, Float> percent = getUsage(val.values());
+            if (percent.isEmpty()) return;
+            long sum = val.values().stream().mapToLong(CpuCounter::getPrevious).sum();
+            sorted.add(new AbstractMap.SimpleImmutableEntry<>(sum, // Map.entry(key, percent) inline type java9+
+                    new AbstractMap.SimpleImmutableEntry<>(key, percent)));
         });
+        sorted.sort((e1, e2) -> Long.compare(e2.getKey(), e1.getKey()));
         // we will also try to get rid of O(log(n)) for random reading
-        int assumeCapacity = map.size();
+        int assumeCapacity = sorted.size();
         return sorted
-                .values()
                 .stream()
+                .map(Map.Entry::getValue)
                 .collect(() -> new LinkedHashMap<>(assumeCapacity),
                         (m, e) -> m.put(e.getKey(), e.getValue()),
                         Map::putAll
                 );
     }
 
+    /**
+     * Returns map of latency statistics per feature and type in the previous time period.
+     * Types which were not executed in the previous time period are skipped.
+     *
+     * @return map of latency statistics per feature and type
+     */
+    public @NotNull Map<String, Map<String, LatencyStatistics>> getFeatureLatencies() {
+        Map<String, Map<String, LatencyStatistics>> latencies = new LinkedHashMap<>();
+        featureCounters.forEach((feature, counters) -> {
+            Map<String, LatencyStatistics> types = new LinkedHashMap<>();
+            for (CpuCounter counter : counters.values()) {
+                LatencyStatistics statistics = counter.getPreviousLatency();
+                if (statistics.getCount() > 0) types.put(counter.getType(), statistics);
+            }
+            if (!types.isEmpty()) latencies.put(feature, types);
+        });
+        return latencies;
+    }
+
     /**
      * Converts nanoseconds to percent usage.
      *
@@ -194,37 +252,56 @@ public class CpuManager {
      * @param nanoseconds time to add
      */
     public void addTime(@NotNull String feature, @NotNull String type, long nanoseconds) {
-        featureUsageCurrent
-                .computeIfAbsent(feature, f -> new ConcurrentHashMap<>())
-                .merge(type, nanoseconds, Long::sum);
+        counter(feature, type).add(nanoseconds);
     }
 
     /**
-     * Adds used time to specified key into specified map
+     * Adds placeholder time to specified placeholder
      *
-     * @param map  map to add usage to
-     * @param key  usage key
-     * @param time nanoseconds to add
+     * @param placeholder placeholder to add time to
+     * @param nanoseconds time to add
      */
-    private void addTime(@NotNull Map<String, Long> map, @NotNull String key, long time) {
-        map.merge(key, time, Long::sum);
+    public void addPlaceholderTime(@NotNull String placeholder, long nanoseconds) {
+        placeholderCounter(placeholder).add(nanoseconds);
     }
 
     /**
-     * Adds placeholder time to specified placeholder
+     * Returns counter of specified feature and usage type, registering it if it does not exist.
+     * Features measuring frequently should obtain the counter once and add time to it directly.
      *
-     * @param placeholder placeholder to add time to
-     * @param nanoseconds time to add
+     * @param feature feature name
+     * @param type    usage type
+     * @return counter of the feature and usage type
      */
-    public void addPlaceholderTime(@NotNull String placeholder, long nanoseconds) {
-        addTime(placeholderUsageCurrent, placeholder, nanoseconds);
+    public @NotNull CpuCounter counter(@NotNull String feature, @NotNull String type) {
+        Map<String, CpuCounter> counters = featureCounters.get(feature);
+        CpuCounter counter = counters == null ? null : counters.get(type);
+        if (counter != null) return counter;
+        return featureCounters.computeIfAbsent(feature, f -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, t -> new CpuCounter(feature, t));
+    }
+
+    /**
+     * Returns counter of specified placeholder, registering it if it does not exist.
+     *
+     * @param placeholder placeholder identifier
+     * @return counter of the placeholder
+     */
+    public @NotNull CpuCounter placeholderCounter(@NotNull String placeholder) {
+        CpuCounter counter = placeholderCounters.get(placeholder);
+        if (counter != null) return counter;
+        return placeholderCounters.computeIfAbsent(placeholder, p -> new CpuCounter(p, null));
     }
 
     public void runMeasuredTask(@NotNull String feature, @NotNull String type, @NotNull Runnable task) {
+        runMeasuredTask(counter(feature, type), task);
+    }
+
+    private void runMeasuredTask(@NotNull CpuCounter counter, @NotNull Runnable task) {
         submit(() -> {
             long time = System.nanoTime();
             task.run();
-            addTime(feature, type, System.nanoTime() - time);
+            counter.add(System.nanoTime() - time);
         });
     }
 
@@ -234,7 +311,8 @@ public class CpuManager {
 
     public void startRepeatingMeasuredTask(int intervalMilliseconds, @NotNull String feature, @NotNull String type, @NotNull Runnable task) {
         if (scheduler.isShutdown()) return;
-        scheduler.scheduleAtFixedRate(() -> runMeasuredTask(feature, type, task), intervalMilliseconds, intervalMilliseconds, TimeUnit.MILLISECONDS);
+        CpuCounter counter = counter(feature, type);
+        scheduler.scheduleAtFixedRate(() -> runMeasuredTask(counter, task), intervalMilliseconds, intervalMilliseconds, TimeUnit.MILLISECONDS);
     }
 
     public void startRepeatingTask(int intervalMilliseconds, @NotNull Runnable task) {
@@ -247,6 +325,192 @@ public class CpuManager {
         scheduler.schedule(() -> runMeasuredTask(feature, type, task), delayMilliseconds, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Returns index of worker shard the player is pinned to. Players are assigned
+     * by their UUID, so the result never changes for the same player.
+     *
+     * @param   player
+     *          player to get shard of
+     * @param   shardCount
+     *          amount of shards
+     * @return  index of the player's shard
+     */
+    private int getShard(@NotNull TabPlayer player, int shardCount) {
+        return Math.floorMod(player.getUniqueId().hashCode(), shardCount);
+    }
+
+    /**
+     * Returns {@code true} if worker shards are enabled, {@code false} if not
+     *
+     * @return  {@code true} if worker shards are enabled, {@code false} if not
+     */
+    public boolean isSharded() {
+        return shards != null;
+    }
+
+    /**
+     * Runs per-player part of a task for all provided players on worker shards. Players are split
+     * between shards based on the shard they are pinned to and each shard receives array of its players.
+     * The task returns a merge step, which is then submitted to the main thread as a measured task,
+     * which is where any cross-player work must happen. Shards advance independently, calling thread
+     * does not wait for them. If a shard has not finished previous call of the task with the same
+     * feature and type yet, it is skipped and the skip handler is called, so the caller can carry
+     * the work over to the next call.
+     * <p>
+     * Both {@code task} and {@code skipped} are called on the calling thread with index of the shard,
+     * function returned by {@code task} is then called on the shard. If sharding is disabled, the
+     * task runs for all players on the calling thread as shard {@code 0}, including its merge step,
+     * which is expected to be measured by the caller.
+     *
+     * @param   feature
+     *          feature to measure merge step under
+     * @param   type
+     *          usage type to measure merge step under
+     * @param   players
+     *          players to process
+     * @param   task
+     *          function returning task for a shard, which receives players of the shard and returns merge step
+     * @param   skipped
+     *          handler of shards which were skipped because they are still busy
+     */
+    public void runShardedTask(@NotNull String feature, @NotNull String type, @NotNull TabPlayer[] players,
+                               @NotNull IntFunction<Function<TabPlayer[], Runnable>> task, @NotNull IntConsumer skipped) {
+        ExecutorService[] shards = this.shards;
+        if (shards == null) {
+            task.apply(0).apply(players).run();
+            return;
+        }
+        CpuCounter counter = counter(feature, type);
+        AtomicBoolean[] busy = busyShards.computeIfAbsent(feature + "|" + type, n -> {
+            AtomicBoolean[] array = new AtomicBoolean[shards.length];
+            for (int i=0; i<array.length; i++) array[i] = new AtomicBoolean();
+            return array;
+        });
+        int[] shardOf = new int[players.length];
+        int[] counts = new int[shards.length];
+        for (int i=0; i<players.length; i++) {
+            shardOf[i] = getShard(players[i], shards.length);
+            counts[shardOf[i]]++;
+        }
+        TabPlayer[][] buckets = new TabPlayer[shards.length][];
+        for (int i=0; i<shards.length; i++) {
+            buckets[i] = new TabPlayer[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i=0; i<players.length; i++) {
+            buckets[shardOf[i]][counts[shardOf[i]]++] = players[i];
+        }
+        for (int i=0; i<shards.length; i++) {
+            TabPlayer[] bucket = buckets[i];
+            if (bucket.length == 0) continue;
+            AtomicBoolean shardBusy = busy[i];
+            if (!shardBusy.compareAndSet(false, true)) {
+                skipped.accept(i);
+                continue;
+            }
+            Function<TabPlayer[], Runnable> shardTask = task.apply(i);
+            try {
+                shards[i].submit(() -> {
+                    try {
+                        Runnable merge = shardTask.apply(bucket);
+                        runMeasuredTask(counter, () -> {
+                            shardBusy.set(false);
+                            merge.run();
+                        });
+                    } catch (Throwable t) {
+                        shardBusy.set(false);
+                        TAB.getInstance().getErrorManager().printError("An error was thrown when executing task", t);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shard was shut down during plugin disable
+            }
+        }
+    }
+
+    /**
+     * Returns fork-join pool for parallel tasks, creating it if it does not exist yet.
+     * Returns {@code null} if parallelism is {@code 1} or tasks were already cancelled.
+     *
+     * @return  fork-join pool for parallel tasks or {@code null} if tasks should run on calling thread
+     */
+    private @Nullable ForkJoinPool getParallelPool() {
+        ForkJoinPool pool = parallelPool;
+        if (pool != null || parallelism < 2) return pool;
+        synchronized (this) {
+            if (parallelPool == null && !scheduler.isShutdown()) {
+                parallelPool = new ForkJoinPool(parallelism, p -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    thread.setName("TAB Parallel Thread #" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+            }
+            return parallelPool;
+        }
+    }
+
+    /**
+     * Runs per-player task for all provided players in parallel using a fork-join pool.
+     * Unlike {@link #runShardedTask(String, String, TabPlayer[], IntFunction, IntConsumer)}, players are not pinned
+     * to any thread, so the task must be safe to call concurrently, even for the same player
+     * in consecutive calls from different threads. Calling thread waits until all players
+     * are processed. If there are less than three available processors, players are processed
+     * on the calling thread.
+     *
+     * @param   players
+     *          players to process
+     * @param   task
+     *          thread-safe task to run, receiving player and their index in the array
+     */
+    public void runParallelTask(@NotNull TabPlayer[] players, @NotNull ObjIntConsumer<TabPlayer> task) {
+        ForkJoinPool parallelPool = players.length < 2 ? null : getParallelPool();
+        if (parallelPool == null) {
+            for (int i=0; i<players.length; i++) {
+                task.accept(players[i], i);
+            }
+            return;
+        }
+        int threshold = Math.max(1, players.length / (parallelPool.getParallelism() * 4));
+        try {
+            parallelPool.invoke(new PlayerRangeTask(players, task, 0, players.length, threshold));
+        } catch (RejectedExecutionException e) {
+            // Pool was shut down during plugin disable
+        }
+    }
+
+    /**
+     * Fork-join task processing a range of players, splitting it in half until it is small enough.
+     */
+    private class PlayerRangeTask extends RecursiveAction {
+
+        @NotNull private final TabPlayer[] players;
+        @NotNull private final ObjIntConsumer<TabPlayer> task;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private PlayerRangeTask(@NotNull TabPlayer[] players, @NotNull ObjIntConsumer<TabPlayer> task, int from, int to, int threshold) {
+            this.players = players;
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i=from; i<to; i++) {
+                    int index = i;
+                    run(() -> task.accept(players[index], index));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlayerRangeTask(players, task, from, middle, threshold), new PlayerRangeTask(players, task, middle, to, threshold));
+        }
+    }
+
     private void run(@NotNull Runnable task) {
         try {
             task.run();
@@ -1,5 +1,6 @@
 package me.neznamy.tab.shared;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -41,6 +42,18 @@ public class FeatureManager {
     @NotNull
     @Getter private TabFeature[] values = new TabFeature[0];
 
+    /** Features listening to game mode changes with their counters, measured on every player info packet */
+    @NotNull private volatile ListenerGroup gameModeListeners = new ListenerGroup();
+
+    /** Features listening to display name changes with their counters, measured on every player info packet */
+    @NotNull private volatile ListenerGroup displayNameListeners = new ListenerGroup();
+
+    /** Features listening to display objective packets with their counters */
+    @NotNull private volatile ListenerGroup displayObjectiveListeners = new ListenerGroup();
+
+    /** Features listening to objective packets with their counters */
+    @NotNull private volatile ListenerGroup objectiveListeners = new ListenerGroup();
+
     /**
      * Calls load() on all features.
      * This function is called on plugin startup.
@@ -92,22 +105,22 @@ public class FeatureManager {
     }
 
     public void onGameModeChange(@NotNull TabPlayer player) {
-        for (TabFeature f : values) {
-            if (!(f instanceof GameModeListener)) continue;
+        ListenerGroup group = gameModeListeners;
+        for (int i=0; i<group.features.length; i++) {
             long time = System.nanoTime();
-            ((GameModeListener) f).onGameModeChange(player);
-            TAB.getInstance().getCPUManager().addTime(f, TabConstants.CpuUsageCategory.PACKET_PLAYER_INFO, System.nanoTime() - time);
+            ((GameModeListener) group.features[i]).onGameModeChange(player);
+            group.counters[i].add(System.nanoTime() - time);
         }
     }
 
     public IChatBaseComponent onDisplayNameChange(@NotNull TabPlayer packetReceiver, @NotNull UUID id) {
         IChatBaseComponent newDisplayName = null;
-        for (TabFeature f : values) {
-            if (!(f instanceof DisplayNameListener)) continue;
+        ListenerGroup group = displayNameListeners;
+        for (int i=0; i<group.features.length; i++) {
             long time = System.nanoTime();
-            IChatBaseComponent value = ((DisplayNameListener) f).onDisplayNameChange(packetReceiver, id);
+            IChatBaseComponent value = ((DisplayNameListener) group.features[i]).onDisplayNameChange(packetReceiver, id);
             if (value != null) newDisplayName = value;
-            TAB.getInstance().getCPUManager().addTime(f, TabConstants.CpuUsageCategory.PACKET_PLAYER_INFO, System.nanoTime() - time);
+            group.counters[i].add(System.nanoTime() - time);
         }
         return newDisplayName;
     }
@@ -165,6 +178,7 @@ public class FeatureManager {
         String from = changed.getServer();
         changed.setServer(to);
         changed.getScoreboard().clearRegisteredObjectives();
+        changed.getTabList().clearBatch();
         ((ProxyTabPlayer)changed).sendJoinPluginMessage();
         for (TabFeature f : values) {
             if (!(f instanceof ServerSwitchListener)) continue;
@@ -187,23 +201,6 @@ public class FeatureManager {
         return cancel;
     }
 
-    /**
-     * Calls onPacketSend(TabPlayer, Object) on all features
-     * 
-     * @param   receiver
-     *          packet receiver
-     * @param   packet
-     *          OUT packet coming from the server
-     */
-    public void onPacketSend(@NotNull TabPlayer receiver, @NotNull Object packet) {
-        for (TabFeature f : values) {
-            if (!(f instanceof PacketSendListener)) continue;
-            long time = System.nanoTime();
-            ((PacketSendListener)f).onPacketSend(receiver, packet);
-            TAB.getInstance().getCPUManager().addTime(f, TabConstants.CpuUsageCategory.RAW_PACKET_OUT, System.nanoTime()-time);
-        }
-    }
-
     /**
      * Calls onDisplayObjective(...) on all features
      *
@@ -215,11 +212,11 @@ public class FeatureManager {
      *          Objective name
      */
     public void onDisplayObjective(@NotNull TabPlayer packetReceiver, int slot, @NotNull String objective) {
-        for (TabFeature f : values) {
-            if (!(f instanceof DisplayObjectiveListener)) continue;
+        ListenerGroup group = displayObjectiveListeners;
+        for (int i=0; i<group.features.length; i++) {
             long time = System.nanoTime();
-            ((DisplayObjectiveListener)f).onDisplayObjective(packetReceiver, slot, objective);
-            TAB.getInstance().getCPUManager().addTime(f, TabConstants.CpuUsageCategory.ANTI_OVERRIDE, System.nanoTime()-time);
+            ((DisplayObjectiveListener) group.features[i]).onDisplayObjective(packetReceiver, slot, objective);
+            group.counters[i].add(System.nanoTime()-time);
         }
     }
 
@@ -234,11 +231,11 @@ public class FeatureManager {
      *          Objective name
      */
     public void onObjective(@NotNull TabPlayer packetReceiver, int action, @NotNull String objective) {
-        for (TabFeature f : values) {
-            if (!(f instanceof ObjectiveListener)) continue;
+        ListenerGroup group = objectiveListeners;
+        for (int i=0; i<group.features.length; i++) {
             long time = System.nanoTime();
-            ((ObjectiveListener)f).onObjective(packetReceiver, action, objective);
-            TAB.getInstance().getCPUManager().addTime(f, TabConstants.CpuUsageCategory.ANTI_OVERRIDE, System.nanoTime()-time);
+            ((ObjectiveListener) group.features[i]).onObjective(packetReceiver, action, objective);
+            group.counters[i].add(System.nanoTime()-time);
         }
     }
 
@@ -254,6 +251,7 @@ public class FeatureManager {
     public void registerFeature(@NotNull String featureName, @NotNull TabFeature featureHandler) {
         features.put(featureName, featureHandler);
         values = features.values().toArray(new TabFeature[0]);
+        updateListeners();
         if (featureHandler instanceof VanishListener) {
             TAB.getInstance().getPlaceholderManager().addUsedPlaceholders(Collections.singletonList(TabConstants.Placeholder.VANISHED));
         }
@@ -265,6 +263,17 @@ public class FeatureManager {
     public void unregisterFeature(@NotNull String featureName) {
         features.remove(featureName);
         values = features.values().toArray(new TabFeature[0]);
+        updateListeners();
+    }
+
+    /**
+     * Rebuilds listener groups of packet events from currently registered features
+     */
+    private void updateListeners() {
+        gameModeListeners = new ListenerGroup(values, GameModeListener.class, TabConstants.CpuUsageCategory.PACKET_PLAYER_INFO);
+        displayNameListeners = new ListenerGroup(values, DisplayNameListener.class, TabConstants.CpuUsageCategory.PACKET_PLAYER_INFO);
+        displayObjectiveListeners = new ListenerGroup(values, DisplayObjectiveListener.class, TabConstants.CpuUsageCategory.ANTI_OVERRIDE);
+        objectiveListeners = new ListenerGroup(values, ObjectiveListener.class, TabConstants.CpuUsageCategory.ANTI_OVERRIDE);
     }
 
     public boolean isFeatureEnabled(@NotNull String name) {
@@ -300,6 +309,10 @@ public class FeatureManager {
             if (inj != null) featureManager.registerFeature(TabConstants.Feature.PIPELINE_INJECTION, inj);
         }
 
+        int updateQueueInterval = configuration.getSecretOption("update-queue-interval", 0);
+        if (updateQueueInterval > 0)
+            featureManager.registerFeature(TabConstants.Feature.UPDATE_QUEUE, new UpdateQueueFlusher(updateQueueInterval));
+
         if (configuration.getConfig().getBoolean("scoreboard.enabled", false))
             featureManager.registerFeature(TabConstants.Feature.SCOREBOARD, new ScoreboardManagerImpl());
 
@@ -364,4 +377,43 @@ public class FeatureManager {
         RedisSupport redis = TAB.getInstance().getPlatform().getRedisSupport();
         if (redis != null) TAB.getInstance().getFeatureManager().registerFeature(TabConstants.Feature.REDIS_BUNGEE, redis);
     }
-}
\ No newline at end of file
+
+    /**
+     * Features implementing a listener together with their CPU usage counters,
+     * so frequently called events do not need to filter features or look up counters.
+     */
+    private static class ListenerGroup {
+
+        /** Features implementing the listener */
+        @NotNull private final TabFeature[] features;
+
+        /** Counters of the features, index matches {@link #features} */
+        @NotNull private final CpuCounter[] counters;
+
+        /**
+         * Constructs new empty instance
+         */
+        private ListenerGroup() {
+            features = new TabFeature[0];
+            counters = new CpuCounter[0];
+        }
+
+        /**
+         * Constructs new instance with features implementing specified listener
+         *
+         * @param   all
+         *          all registered features
+         * @param   listener
+         *          listener class to filter features by
+         * @param   type
+         *          usage type to measure the listener under
+         */
+        private ListenerGroup(@NotNull TabFeature[] all, @NotNull Class<?> listener, @NotNull String type) {
+            features = Arrays.stream(all).filter(listener::isInstance).toArray(TabFeature[]::new);
+            counters = new CpuCounter[features.length];
+            for (int i=0; i<features.length; i++) {
+                counters[i] = TAB.getInstance().getCPUManager().counter(features[i].getFeatureName(), type);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package me.neznamy.tab.shared;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import me.neznamy.tab.api.cpu.LatencyStatistics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Fixed-size histogram of execution times with logarithmic buckets. Every power of two
+ * is split into {@link #SUB_BUCKETS} linear sub-buckets, which keeps relative error of
+ * percentiles under 1 / {@link #SUB_BUCKETS} while using the same memory for any range of values.
+ */
+public class LatencyHistogram {
+
+    /** Amount of bits used for sub-bucket index */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Amount of sub-buckets per power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Highest tracked power of two, larger values are counted into the last bucket (~18 minutes) */
+    private static final int MAX_EXPONENT = 40;
+
+    /** Total amount of buckets */
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** Empty statistics used when nothing was measured */
+    public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0);
+
+    /** Amount of recorded values in each bucket in current time period */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /** Highest recorded value in current time period */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value
+     *
+     * @param   nanoseconds
+     *          value to record, negative values are ignored
+     */
+    public void record(long nanoseconds) {
+        if (nanoseconds < 0) return;
+        buckets.incrementAndGet(getBucket(nanoseconds));
+        max.accumulate(nanoseconds);
+    }
+
+    /**
+     * Computes statistics of current time period and resets the histogram for the next one
+     *
+     * @return  statistics of the time period which just ended
+     */
+    public @NotNull Snapshot rollOver() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i=0; i<BUCKET_COUNT; i++) {
+            counts[i] = buckets.getAndSet(i, 0);
+            count += counts[i];
+        }
+        long maxValue = max.getThenReset();
+        if (count == 0) return EMPTY;
+        return new Snapshot(count, Math.min(maxValue, getPercentile(counts, count, 0.5)),
+                Math.min(maxValue, getPercentile(counts, count, 0.99)), maxValue);
+    }
+
+    /**
+     * Returns index of bucket the value belongs to
+     *
+     * @param   value
+     *          non-negative value
+     * @return  index of bucket of the value
+     */
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns highest value belonging to specified bucket
+     *
+     * @param   bucket
+     *          bucket index
+     * @return  highest value of the bucket
+     */
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Returns value at specified percentile from bucket counts
+     *
+     * @param   counts
+     *          amount of values in each bucket
+     * @param   total
+     *          total amount of values
+     * @param   percentile
+     *          percentile from 0 to 1
+     * @return  value at specified percentile
+     */
+    private static long getPercentile(@NotNull long[] counts, long total, double percentile) {
+        long target = Math.max(1, (long) Math.ceil(total * percentile));
+        long cumulative = 0;
+        for (int i=0; i<counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) return getBucketUpperBound(i);
+        }
+        return getBucketUpperBound(counts.length - 1);
+    }
+
+    /**
+     * Immutable latency statistics of a single time period
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot implements LatencyStatistics {
+
+        /** Amount of measured executions */
+        private final long count;
+
+        /** Median execution time in nanoseconds */
+        private final long p50;
+
+        /** 99th percentile of execution time in nanoseconds */
+        private final long p99;
+
+        /** Longest execution time in nanoseconds */
+        private final long max;
+    }
+}
@@ -38,12 +38,26 @@ public class Property {
     /** Raw value assigned via API, null if not set */
     @Nullable @Getter private String temporaryValue;
 
+    /** Reused builder for rendering values to avoid allocating a new one on each update */
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * Marker temporarily inserted in place of placeholders when compiling the raw value.
+     * It contains {@code %} so that gradients spanning placeholders are not applied.
+     */
+    private static final String PLACEHOLDER_MARKER = "%\uE000%";
+
     /**
-     * Raw value using %s for each placeholder ready to be inserted
-     * into String formatter, which results in about 5x lower
-     * memory allocations as well as better performance.
+     * Colored static text parts of the raw value with gradients applied. Part at index {@code i}
+     * is located before placeholder at index {@code i}, the last part is after the last placeholder.
      */
-    private String rawFormattedValue;
+    private String[] literals;
+
+    /** Values of placeholders used in last update, same order as {@link #placeholders}, updated in place */
+    private String[] lastValues;
+
+    /** Relational flag of each placeholder, same order as {@link #placeholders} */
+    private boolean[] relational;
 
     /** Last known value after parsing non-relational placeholders */
     private String lastReplacedValue;
@@ -62,6 +76,19 @@ public class Property {
     /** Relational placeholders in the text in the same order they are used */
     private String[] relPlaceholders;
 
+    /**
+     * Whether this property is registered in owner's placeholder index and receives
+     * dirty marks when a placeholder it uses changes value. Temporary properties
+     * without name and listener are not indexed and always update.
+     */
+    private final boolean indexed;
+
+    /**
+     * Whether a placeholder used in this property changed value since last {@link #update()},
+     * meaning the text must be formatted again.
+     */
+    private volatile boolean dirty = true;
+
     /**
      * Constructs new instance with given parameters and prepares
      * the formatter for use by detecting placeholders and reformatting the text.
@@ -82,12 +109,13 @@ public class Property {
         this.owner = owner;
         this.source = source;
         this.originalRawValue = rawValue;
+        this.indexed = name != null || listener != null;
         analyze(this.originalRawValue);
     }
 
     /**
-     * Finds all placeholders used in the value and prepares it for
-     * String formatter using %s for each placeholder.
+     * Finds all placeholders used in the value and compiles it into colored
+     * static text parts and placeholders between them.
      *
      * @param   value
      *          raw value to analyze
@@ -95,32 +123,45 @@ public class Property {
     private void analyze(@NotNull String value) {
         List<String> placeholders0 = new ArrayList<>();
         List<String> relPlaceholders0 = new ArrayList<>();
+        StringBuilder marked = new StringBuilder(value.length());
+        int index = 0;
         for (String identifier : TAB.getInstance().getPlaceholderManager().detectPlaceholders(value)) {
             placeholders0.add(identifier);
             if (identifier.startsWith("%rel_")) {
                 relPlaceholders0.add(identifier);
             }
+            int start = value.indexOf(identifier, index);
+            marked.append(value, index, start).append(PLACEHOLDER_MARKER);
+            index = start + identifier.length();
         }
-        String rawFormattedValue0 = value;
-        for (String placeholder : placeholders0) {
-            rawFormattedValue0 = rawFormattedValue0.replace(placeholder, "%s");
+        marked.append(value, index, value.length());
+        String compiled = EnumChatFormat.color(RGBUtils.getInstance().applyCleanGradients(marked.toString()));
+        String[] literals0 = new String[placeholders0.size()+1];
+        index = 0;
+        for (int i=0; i<placeholders0.size(); i++) {
+            int start = compiled.indexOf(PLACEHOLDER_MARKER, index);
+            literals0[i] = compiled.substring(index, start);
+            index = start + PLACEHOLDER_MARKER.length();
         }
-        if (placeholders0.size() > 0 && rawFormattedValue0.contains("%")) {
-            int index = rawFormattedValue0.lastIndexOf('%');
-            if (rawFormattedValue0.length() == index+1 || rawFormattedValue0.charAt(index+1) != 's') {
-                StringBuilder sb = new StringBuilder(rawFormattedValue0);
-                sb.insert(index+1, "%");
-                rawFormattedValue0 = sb.toString();
-            }
+        literals0[placeholders0.size()] = compiled.substring(index);
+        if (indexed) {
+            if (placeholders != null) owner.unindexProperty(this, placeholders);
+            owner.indexProperty(this, placeholders0);
         }
-        rawFormattedValue0 = RGBUtils.getInstance().applyCleanGradients(rawFormattedValue0);
-        rawFormattedValue = EnumChatFormat.color(rawFormattedValue0);
         placeholders = placeholders0.toArray(new String[0]);
         relPlaceholders = relPlaceholders0.toArray(new String[0]);
+        literals = literals0;
+        relational = new boolean[placeholders.length];
+        lastValues = new String[placeholders.length];
+        for (int i=0; i<placeholders.length; i++) {
+            relational[i] = placeholders[i].startsWith("%rel_");
+            lastValues[i] = placeholders[i];
+        }
         if (listener != null) {
             listener.addUsedPlaceholders(placeholders0);
         }
-        lastReplacedValue = rawFormattedValue;
+        lastReplacedValue = render(lastValues, null);
+        dirty = true;
         update();
         if (name != null) {
             TabExpansion expansion = TAB.getInstance().getPlaceholderManager().getTabExpansion();
@@ -193,23 +234,46 @@ public class Property {
     }
 
     /**
-     * Replaces all placeholders in current raw value, colorizes it and returns whether value changed or not
+     * Marks this property as dirty, making next {@link #update()} format the text again.
+     * Called when a placeholder used in this property changes value.
+     */
+    public void markDirty() {
+        dirty = true;
+        owner.getDirtyProperties().add(this);
+    }
+
+    /**
+     * Returns {@code true} if a placeholder used in this property changed value
+     * since last update, {@code false} if not.
+     *
+     * @return  {@code true} if property needs to be updated, {@code false} if not
+     */
+    public boolean isDirty() {
+        return dirty || !indexed;
+    }
+
+    /**
+     * Replaces all placeholders in current raw value, colorizes it and returns whether value changed or not.
+     * If no placeholder used in this property changed value since last update, this returns {@code false}
+     * immediately without formatting the text.
      *
      * @return  if updating changed value or not
      */
     public boolean update() {
         if (placeholders.length == 0) return false;
-        String string;
-        if ("%s".equals(rawFormattedValue)) {
-            string = TAB.getInstance().getPlaceholderManager().getPlaceholder(placeholders[0]).set(placeholders[0], owner);
-        } else {
-            Object[] values = new String[placeholders.length];
-            for (int i=0; i<placeholders.length; i++) {
-                values[i] = TAB.getInstance().getPlaceholderManager().getPlaceholder(placeholders[i]).set(placeholders[i], owner);
-            }
-            string = String.format(rawFormattedValue, values);
+        owner.getDirtyProperties().remove(this);
+        if (!isDirty()) return false;
+        dirty = false;
+        boolean changed = false;
+        for (int i=0; i<placeholders.length; i++) {
+            if (relational[i]) continue;
+            String value = TAB.getInstance().getPlaceholderManager().getPlaceholder(placeholders[i]).set(placeholders[i], owner);
+            if (value.equals(lastValues[i])) continue;
+            lastValues[i] = value;
+            changed = true;
         }
-        string = EnumChatFormat.color(string);
+        if (!changed) return false;
+        String string = render(lastValues, null);
         if (!lastReplacedValue.equals(string)) {
             lastReplacedValue = string;
             if (name != null) {
@@ -220,6 +284,92 @@ public class Property {
         return false;
     }
 
+    /**
+     * Renders the text from static parts and provided placeholder values. Only placeholder
+     * values get colored, since static parts were colored when compiling. Color codes split
+     * between a static part and a placeholder value are colored as well.
+     * Segments are appended directly into the thread-local builder. Rendering starts at
+     * current end of the builder and truncates it back when done, so a placeholder
+     * rendering another property while this one is being rendered does not break it.
+     *
+     * @param   values
+     *          values of non-relational placeholders
+     * @param   viewer
+     *          viewer to set relational placeholders for, {@code null} to keep their identifiers
+     * @return  rendered text
+     */
+    private @NotNull String render(@NotNull String[] values, @Nullable TabPlayer viewer) {
+        if (placeholders.length == 0) return literals[0];
+        StringBuilder sb = BUILDER.get();
+        int base = sb.length();
+        try {
+            sb.append(literals[0]);
+            for (int i=0; i<placeholders.length; i++) {
+                String part;
+                if (relational[i]) {
+                    if (viewer == null) {
+                        part = placeholders[i];
+                    } else {
+                        part = ((RelationalPlaceholderImpl) TAB.getInstance().getPlaceholderManager().getPlaceholder(placeholders[i])).getLastValue(viewer, owner);
+                    }
+                } else {
+                    part = viewer == null ? values[i] : setRelational(values[i], viewer);
+                }
+                appendColored(sb, base, part, true);
+                appendColored(sb, base, literals[i+1], false);
+            }
+            return sb.substring(base);
+        } finally {
+            sb.setLength(base);
+        }
+    }
+
+    /**
+     * Replaces relational placeholders used in this property in a placeholder value,
+     * which may contain them as nested placeholders.
+     *
+     * @param   value
+     *          placeholder value
+     * @param   viewer
+     *          viewer to set relational placeholders for
+     * @return  value with relational placeholders replaced
+     */
+    private @NotNull String setRelational(@NotNull String value, @NotNull TabPlayer viewer) {
+        if (!value.contains("%rel_")) return value;
+        String replaced = value;
+        for (String identifier : relPlaceholders) {
+            replaced = replaced.replace(identifier, ((RelationalPlaceholderImpl) TAB.getInstance().getPlaceholderManager().getPlaceholder(identifier)).getLastValue(viewer, owner));
+        }
+        return replaced;
+    }
+
+    /**
+     * Appends text to the builder while translating color codes in it, including
+     * a color code split between end of the builder and start of the text.
+     *
+     * @param   sb
+     *          builder to append to
+     * @param   base
+     *          start of currently rendered text in the builder, nothing before it is modified
+     * @param   text
+     *          text to append
+     * @param   colorAll
+     *          {@code true} to translate the whole text, {@code false} if it is already
+     *          colored and only a code split at the start should be translated
+     */
+    private void appendColored(@NotNull StringBuilder sb, int base, @NotNull String text, boolean colorAll) {
+        if (text.isEmpty()) return;
+        int start = sb.length();
+        sb.append(text);
+        int end = colorAll ? sb.length()-1 : Math.min(start, sb.length()-1);
+        for (int i = Math.max(base, start-1); i < end; i++) {
+            if (sb.charAt(i) == '&' && "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx".indexOf(sb.charAt(i+1)) > -1) {
+                sb.setCharAt(i, EnumChatFormat.COLOR_CHAR);
+                sb.setCharAt(i+1, Character.toLowerCase(sb.charAt(i+1)));
+            }
+        }
+    }
+
     /**
      * Returns last known value
      *
@@ -229,6 +379,16 @@ public class Property {
         return lastReplacedValue;
     }
 
+    /**
+     * Returns {@code true} if value contains relational placeholders and therefore
+     * may be different for each viewer, {@code false} if not
+     *
+     * @return  {@code true} if relational placeholders are used, {@code false} if not
+     */
+    public boolean hasRelationalPlaceholders() {
+        return relPlaceholders.length > 0;
+    }
+
     /**
      * Returns value for defined viewer by applying relational placeholders to last known value
      *
@@ -237,11 +397,14 @@ public class Property {
      * @return  format for the viewer
      */
     public @NotNull String getFormat(@Nullable TabPlayer viewer) {
-        String format = lastReplacedValue;
-        for (String identifier : relPlaceholders) {
-            RelationalPlaceholderImpl pl = (RelationalPlaceholderImpl) TAB.getInstance().getPlaceholderManager().getPlaceholder(identifier);
-            format = format.replace(pl.getIdentifier(), viewer == null ? "" : pl.getLastValue(viewer, owner));
+        if (relPlaceholders.length == 0) return lastReplacedValue;
+        if (viewer == null) {
+            String format = lastReplacedValue;
+            for (String identifier : relPlaceholders) {
+                format = format.replace(identifier, "");
+            }
+            return format;
         }
-        return EnumChatFormat.color(format);
+        return render(lastValues, viewer);
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import me.neznamy.tab.api.TabAPI;
 import me.neznamy.tab.api.bossbar.BossBarManager;
+import me.neznamy.tab.api.cpu.LatencyStatistics;
 import me.neznamy.tab.api.tablist.SortingManager;
 import me.neznamy.tab.api.tablist.layout.LayoutManager;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
@@ -21,11 +22,13 @@ import me.neznamy.tab.shared.event.EventBusImpl;
 import me.neznamy.tab.shared.event.impl.TabLoadEventImpl;
 import me.neznamy.tab.shared.features.PlaceholderManagerImpl;
 import me.neznamy.tab.shared.platform.TabPlayer;
+import me.neznamy.tab.shared.util.ComponentCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.yaml.snakeyaml.error.YAMLException;
 
 import java.io.File;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -47,6 +50,9 @@ public class TAB extends TabAPI {
     /** Online player array to avoid memory allocation when iterating */
     @Getter private volatile TabPlayer[] onlinePlayers = new TabPlayer[0];
 
+    /** Slots currently assigned to online players */
+    private final BitSet usedSlots = new BitSet();
+
     /** Instance of plugin's main command */
     @Getter private TabCommand command;
 
@@ -145,6 +151,7 @@ public class TAB extends TabAPI {
             long time = System.currentTimeMillis();
             cpu = new CpuManager();
             configuration = new Configs();
+            ComponentCache.loadConfiguredSizes();
             featureManager = new FeatureManager();
             featureManager.registerFeature(TabConstants.Feature.PLACEHOLDER_MANAGER, new PlaceholderManagerImpl());
             featureManager.registerFeature(TabConstants.Feature.GROUP_MANAGER, platform.detectPermissionPlugin());
@@ -198,6 +205,9 @@ public class TAB extends TabAPI {
         data.clear();
         playersByTabListId.clear();
         onlinePlayers = new TabPlayer[0];
+        synchronized (usedSlots) {
+            usedSlots.clear();
+        }
         cpu.cancelAllTasks();
     }
 
@@ -208,9 +218,16 @@ public class TAB extends TabAPI {
      *          Player to add
      */
     public void addPlayer(@NotNull TabPlayer player) {
-        data.put(player.getUniqueId(), player);
+        TabPlayer previous = data.put(player.getUniqueId(), player);
         playersByTabListId.put(player.getTablistId(), player);
         onlinePlayers = data.values().toArray(new TabPlayer[0]);
+        synchronized (usedSlots) {
+            if (previous != null && previous != player) releaseSlot(previous);
+            if (player.getSlot() != -1) return;
+            int slot = usedSlots.nextClearBit(0);
+            usedSlots.set(slot);
+            player.setSlot(slot);
+        }
     }
 
     /**
@@ -223,6 +240,23 @@ public class TAB extends TabAPI {
         data.remove(player.getUniqueId());
         playersByTabListId.remove(player.getTablistId());
         onlinePlayers = data.values().toArray(new TabPlayer[0]);
+        synchronized (usedSlots) {
+            releaseSlot(player);
+        }
+    }
+
+    /**
+     * Releases player's slot, so it can be assigned to another player. Entries of the player
+     * in slot maps are no longer returned and get replaced once the slot is reused.
+     * Must be called with slot lock held.
+     *
+     * @param   player
+     *          Player to release slot of
+     */
+    private void releaseSlot(@NotNull TabPlayer player) {
+        if (player.getSlot() == -1) return;
+        usedSlots.clear(player.getSlot());
+        player.setSlot(-1);
     }
 
     /**
@@ -305,6 +339,11 @@ public class TAB extends TabAPI {
         return featureManager.getFeature(TabConstants.Feature.SORTING);
     }
 
+    @Override
+    public @NotNull Map<String, Map<String, LatencyStatistics>> getFeatureLatencies() {
+        return cpu.getFeatureLatencies();
+    }
+
     /**
      * Sends a debug message into console if the option
      * is enabled in config.
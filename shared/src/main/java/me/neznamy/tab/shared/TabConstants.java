@@ -59,6 +59,8 @@ public class TabConstants {
         public static final String SCOREBOARD_PACKET_CHECK = "Checking for other plugins";
         public static final String PROCESSING_PLAYER_MOVEMENT = "Processing player movement";
         public static final String TELEPORTING_WITHER = "Teleporting wither";
+        public static final String FLUSHING_TABLIST_UPDATES = "Flushing buffered tablist updates";
+        public static final String FLUSHING_UPDATE_QUEUE = "Flushing queued updates";
     }
 
     /**
@@ -189,6 +191,7 @@ public class TabConstants {
         public static final String NAME_TAGS_VISIBILITY = "NameTagVisibility";
         public static final String GROUP_MANAGER = "GroupManager";
         public static final String PLACEHOLDER_MANAGER = "PlaceholderManager";
+        public static final String UPDATE_QUEUE = "UpdateQueue";
         public static final String UNLIMITED_NAME_TAGS = "NameTagX";
         public static final String UNLIMITED_NAME_TAGS_PACKET_LISTENER = "nametagx-packet";
         public static final String UNLIMITED_NAME_TAGS_VEHICLE_REFRESHER = "nametagx-vehicle";
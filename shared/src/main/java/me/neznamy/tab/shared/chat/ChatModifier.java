@@ -4,7 +4,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.json.simple.JSONObject;
 
 @Data @NoArgsConstructor
 public class ChatModifier {
@@ -25,16 +24,22 @@ public class ChatModifier {
         this.obfuscated = modifier.obfuscated;
     }
 
-    @SuppressWarnings("unchecked")
-    public @NotNull JSONObject serialize(boolean rgbSupport) {
-        JSONObject json = new JSONObject();
-        if (color != null) json.put("color", color.toString(rgbSupport));
-        if (bold) json.put("bold", true);
-        if (italic) json.put("italic", true);
-        if (underlined) json.put("underlined", true);
-        if (strikethrough) json.put("strikethrough", true);
-        if (obfuscated) json.put("obfuscated", true);
-        return json;
+    /**
+     * Appends fields of this modifier into json object being written into provided builder.
+     * Every field is prefixed with a comma.
+     *
+     * @param   builder
+     *          builder to append fields to
+     * @param   rgbSupport
+     *          {@code true} if client supports RGB colors, {@code false} if colors should be converted to legacy
+     */
+    public void serialize(@NotNull StringBuilder builder, boolean rgbSupport) {
+        if (color != null) builder.append(",\"color\":\"").append(color.toString(rgbSupport)).append('"');
+        if (bold) builder.append(",\"bold\":true");
+        if (italic) builder.append(",\"italic\":true");
+        if (underlined) builder.append(",\"underlined\":true");
+        if (strikethrough) builder.append(",\"strikethrough\":true");
+        if (obfuscated) builder.append(",\"obfuscated\":true");
     }
 
     public @NotNull String getMagicCodes() {
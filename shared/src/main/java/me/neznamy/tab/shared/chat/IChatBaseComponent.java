@@ -2,9 +2,9 @@ package me.neznamy.tab.shared.chat;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import me.neznamy.tab.shared.ProtocolVersion;
 import me.neznamy.tab.shared.chat.rgb.RGBUtils;
+import me.neznamy.tab.shared.platform.ViewerCohort;
 import me.neznamy.tab.shared.util.ComponentCache;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.TextDecoration;
@@ -12,15 +12,14 @@ import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.json.simple.JSONObject;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * A class representing the n.m.s.IChatBaseComponent class to make work with it much easier
  */
-@SuppressWarnings("unchecked")
 @NoArgsConstructor
 public class IChatBaseComponent {
 
@@ -28,31 +27,42 @@ public class IChatBaseComponent {
      * Component cache maps to avoid large memory allocations as well as
      * higher CPU usage when using animations which send the same text on repeat.
      */
-    private static final ComponentCache<String, IChatBaseComponent> stringCache = new ComponentCache<>(10000, (text, clientVersion) -> {
+    private static final ComponentCache<String, IChatBaseComponent> stringCache = new ComponentCache<>("string", 10000, (text, clientVersion) -> {
                 return text.contains("#") || text.contains("&x") || text.contains(EnumChatFormat.COLOR_CHAR + "x") || text.contains("<") ?
                     IChatBaseComponent.fromColoredText(text) : //contains RGB colors
                     new IChatBaseComponent(text); //no RGB
             });
 
-    private static final ComponentCache<IChatBaseComponent, String> serializeCache = new ComponentCache<>(10000,
-            (component, clientVersion) -> component.toString());
+    private static final ComponentCache<IChatBaseComponent, String> serializeCache = new ComponentCache<>("serialize", 10000,
+            (component, clientVersion) -> component.serialize(clientVersion == null || clientVersion.getMinorVersion() >= 16));
 
     /** Component cache for BungeeCord components */
     private static final @NotNull ComponentCache<IChatBaseComponent, Object> bungeeCache =
-            new ComponentCache<>(10000, IChatBaseComponent::toBungeeComponent0);
+            new ComponentCache<>("bungee", 10000, IChatBaseComponent::toBungeeComponent0);
 
     public static final String EMPTY_COMPONENT = "{\"text\":\"\"}";
 
+    /** Reused builder for serializing components to avoid allocating a new one on each serialization */
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    /** Capacity of reused builder over which it is discarded to not keep unusually long text in memory */
+    private static final int MAX_BUILDER_CAPACITY = 32768;
+
     /** Text of the component */
-    @Getter @Setter private String text;
+    @Getter private String text;
 
     /** Chat modifier containing color, magic codes, hover and click event */
-    @Getter @Setter @NotNull private ChatModifier modifier = new ChatModifier();
+    @Getter @NotNull private ChatModifier modifier = new ChatModifier();
 
     /** Extra components used in "extra" field */
     @Nullable private List<IChatBaseComponent> extra;
 
-    @Nullable private ProtocolVersion targetVersion;
+    /**
+     * Converted forms of this component for each viewer cohort and conversion type,
+     * so a component sent to many viewers is only converted once per cohort.
+     * Created on first conversion.
+     */
+    @Nullable private volatile Object[] cohortPayloads;
 
     /**
      * Constructs a new component which is a clone of provided component
@@ -64,7 +74,6 @@ public class IChatBaseComponent {
         this.text = component.text;
         this.modifier = new ChatModifier(component.modifier);
         this.extra = component.extra == null ? null : component.extra.stream().map(IChatBaseComponent::new).collect(Collectors.toList());
-        this.targetVersion = component.targetVersion;
     }
 
     /**
@@ -99,24 +108,136 @@ public class IChatBaseComponent {
     public @NotNull IChatBaseComponent setExtra(@NotNull List<IChatBaseComponent> components) {
         if (components.isEmpty()) throw new IllegalArgumentException("Unexpected empty array of components"); //exception taken from minecraft
         this.extra = components;
+        cohortPayloads = null;
         return this;
     }
 
     /**
-     * Converts the component to a string representing the serialized component.
-     * This method is only used internally by json library since it's missing
-     * protocol version field used by the method.
+     * Sets text of this component
+     *
+     * @param   text
+     *          text to display
+     */
+    public void setText(String text) {
+        this.text = text;
+        cohortPayloads = null;
+    }
+
+    /**
+     * Sets chat modifier of this component
+     *
+     * @param   modifier
+     *          chat modifier to use
+     */
+    public void setModifier(@NotNull ChatModifier modifier) {
+        this.modifier = modifier;
+        cohortPayloads = null;
+    }
+
+    /**
+     * Converts the component to a string representing the serialized component
+     * with RGB colors kept.
      *
      * @return  serialized component in string form
      * @see     #toString(ProtocolVersion)
      */
     @Override
     public @NotNull String toString() {
-        JSONObject json = new JSONObject();
-        if (text != null) json.put("text", text);
-        json.putAll(modifier.serialize(targetVersion == null || targetVersion.getMinorVersion() >= 16));
-        if (extra != null) json.put("extra", extra);
-        return json.toString();
+        return serialize(true);
+    }
+
+    /**
+     * Serializes this component into json string using a reused builder.
+     *
+     * @param   rgbSupport
+     *          {@code true} if client supports RGB colors, {@code false} if colors should be converted to legacy
+     * @return  serialized component
+     */
+    private @NotNull String serialize(boolean rgbSupport) {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        serialize(builder, rgbSupport);
+        String json = builder.toString();
+        if (builder.capacity() > MAX_BUILDER_CAPACITY) BUILDER.remove();
+        return json;
+    }
+
+    /**
+     * Writes this component and all of its extra components as json object into provided builder.
+     *
+     * @param   builder
+     *          builder to write to
+     * @param   rgbSupport
+     *          {@code true} if client supports RGB colors, {@code false} if colors should be converted to legacy
+     */
+    private void serialize(@NotNull StringBuilder builder, boolean rgbSupport) {
+        builder.append('{');
+        int start = builder.length();
+        if (text != null) {
+            builder.append(",\"text\":");
+            appendString(builder, text);
+        }
+        modifier.serialize(builder, rgbSupport);
+        if (extra != null) {
+            builder.append(",\"extra\":[");
+            for (int i=0; i<extra.size(); i++) {
+                if (i > 0) builder.append(',');
+                extra.get(i).serialize(builder, rgbSupport);
+            }
+            builder.append(']');
+        }
+        if (builder.length() > start) builder.deleteCharAt(start); // Leading comma of first field
+        builder.append('}');
+    }
+
+    /**
+     * Appends text as quoted json string with escaped quotes, backslashes and control characters.
+     *
+     * @param   builder
+     *          builder to append to
+     * @param   text
+     *          text to append
+     */
+    private static void appendString(@NotNull StringBuilder builder, @NotNull String text) {
+        builder.append('"');
+        int length = text.length();
+        int copyFrom = 0;
+        for (int i=0; i<length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            builder.append(text, copyFrom, i);
+            copyFrom = i+1;
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\b':
+                    builder.append("\\b");
+                    break;
+                case '\f':
+                    builder.append("\\f");
+                    break;
+                default:
+                    builder.append("\\u00");
+                    builder.append(Character.forDigit(c >> 4, 16));
+                    builder.append(Character.forDigit(c & 0xF, 16));
+                    break;
+            }
+        }
+        builder.append(text, copyFrom, length);
+        builder.append('"');
     }
 
     /**
@@ -129,11 +250,40 @@ public class IChatBaseComponent {
      */
     public @NotNull String toString(@NotNull ProtocolVersion clientVersion) {
         if (extra == null && (text == null || text.length() == 0)) return EMPTY_COMPONENT;
-        targetVersion = clientVersion;
-        for (IChatBaseComponent child : getExtra()) {
-            child.targetVersion = clientVersion;
+        return getCohortPayload(PayloadType.JSON, clientVersion, v -> serializeCache.get(this, v));
+    }
+
+    /**
+     * Returns converted form of this component for cohort of given client version.
+     * If it was not converted for the cohort yet, converts it using given function and
+     * stores the result. Converted values must not be modified, since they are shared
+     * by all viewers of the cohort.
+     *
+     * @param   type
+     *          type of conversion
+     * @param   clientVersion
+     *          client version to convert component for
+     * @param   converter
+     *          function converting this component
+     * @param   <T>
+     *          type of converted value
+     * @return  converted component
+     */
+    @SuppressWarnings("unchecked")
+    private <T> @NotNull T getCohortPayload(@NotNull PayloadType type, @NotNull ProtocolVersion clientVersion,
+                                            @NotNull Function<ProtocolVersion, T> converter) {
+        Object[] payloads = cohortPayloads;
+        if (payloads == null) {
+            payloads = new Object[PayloadType.VALUES.length * ViewerCohort.VALUES.length];
+            cohortPayloads = payloads;
+        }
+        int index = type.ordinal() * ViewerCohort.VALUES.length + ViewerCohort.of(clientVersion).ordinal();
+        Object payload = payloads[index];
+        if (payload == null) {
+            payload = converter.apply(clientVersion);
+            payloads[index] = payload;
         }
-        return serializeCache.get(this, clientVersion);
+        return (T) payload;
     }
 
     /**
@@ -346,6 +496,17 @@ public class IChatBaseComponent {
      * @return  Adventure component from this component.
      */
     public @NotNull Component toAdventureComponent(@NotNull ProtocolVersion clientVersion) {
+        return getCohortPayload(PayloadType.ADVENTURE, clientVersion, this::toAdventureComponent0);
+    }
+
+    /**
+     * Converts this component to adventure component without using converted value of a cohort.
+     *
+     * @param   clientVersion
+     *          Version to create component for
+     * @return  Adventure component from this component.
+     */
+    private @NotNull Component toAdventureComponent0(@NotNull ProtocolVersion clientVersion) {
         net.kyori.adventure.text.format.TextColor color = null;
         if (modifier.getColor() != null) {
             if (clientVersion.getMinorVersion() >= 16) {
@@ -361,7 +522,7 @@ public class IChatBaseComponent {
         if (modifier.isStrikethrough()) decorations.add(TextDecoration.STRIKETHROUGH);
         if (modifier.isUnderlined()) decorations.add(TextDecoration.UNDERLINED);
         return Component.text(text, color, decorations)
-                .children(getExtra().stream().map(c -> c.toAdventureComponent(clientVersion)).collect(Collectors.toList()));
+                .children(getExtra().stream().map(c -> c.toAdventureComponent0(clientVersion)).collect(Collectors.toList()));
     }
 
     /**
@@ -370,7 +531,7 @@ public class IChatBaseComponent {
      * @return  BungeeCord component from this component.
      */
     public TextComponent toBungeeComponent(@NotNull ProtocolVersion clientVersion) {
-        return (TextComponent) bungeeCache.get(this, clientVersion);
+        return getCohortPayload(PayloadType.BUNGEE, clientVersion, v -> (TextComponent) bungeeCache.get(this, v));
     }
 
     /**
@@ -391,4 +552,22 @@ public class IChatBaseComponent {
                 getExtra().stream().map(c -> c.toBungeeComponent(clientVersion)).collect(Collectors.toList()));
         return textComponent;
     }
+
+    /**
+     * Types of conversions of a component
+     */
+    private enum PayloadType {
+
+        /** Serialized json string */
+        JSON,
+
+        /** BungeeCord component */
+        BUNGEE,
+
+        /** Adventure component */
+        ADVENTURE;
+
+        /** Creating a constant to avoid memory allocations on each request */
+        static final PayloadType[] VALUES = values();
+    }
 }
\ No newline at end of file
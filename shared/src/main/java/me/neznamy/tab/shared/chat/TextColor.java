@@ -3,11 +3,24 @@ package me.neznamy.tab.shared.chat;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A class representing a component color, which can be either RGB or legacy code.
  */
 public class TextColor {
 
+    /** Amount of bits each color channel is quantized to in the closest color lookup table */
+    private static final int LOOKUP_BITS = 4;
+
+    /**
+     * Legacy colors which may be the closest color of any color in a quantized color cube,
+     * ordered the same way as {@link EnumChatFormat#VALUES}. Most cubes only have a single candidate,
+     * others are resolved by comparing the few candidates, which gives the same result as comparing all colors.
+     */
+    private static final EnumChatFormat[][] CLOSEST_COLOR_CANDIDATES = createClosestColorCandidates();
+
     /**
      * RGB values as a single number of 3 8-bit numbers (0-255).
      * It is only initialized if colors are actually used to avoid
@@ -103,16 +116,29 @@ public class TextColor {
      * Loads the closest legacy color based currently provided values
      */
     private EnumChatFormat loadClosestColor() {
-        double minMaxDist = 9999;
-        double maxDist;
+        return getClosestColor(getRgb());
+    }
+
+    /**
+     * Returns the closest legacy color to given RGB value, using maximum of
+     * red, green and blue differences as distance.
+     *
+     * @param   rgb
+     *          RGB value as a single number
+     * @return  the closest legacy color
+     */
+    public static @NotNull EnumChatFormat getClosestColor(int rgb) {
+        int red = (rgb >> 16) & 0xFF;
+        int green = (rgb >> 8) & 0xFF;
+        int blue = rgb & 0xFF;
+        int shift = 8 - LOOKUP_BITS;
+        EnumChatFormat[] candidates = CLOSEST_COLOR_CANDIDATES[(((red >> shift) << LOOKUP_BITS | (green >> shift)) << LOOKUP_BITS) | (blue >> shift)];
+        if (candidates.length == 1) return candidates[0];
+        int minMaxDist = Integer.MAX_VALUE;
         EnumChatFormat closestColor = EnumChatFormat.WHITE;
-        for (EnumChatFormat color : EnumChatFormat.VALUES) {
-            int rDiff = Math.abs(color.getRed() - getRed());
-            int gDiff = Math.abs(color.getGreen() - getGreen());
-            int bDiff = Math.abs(color.getBlue() - getBlue());
-            maxDist = rDiff;
-            if (gDiff > maxDist) maxDist = gDiff;
-            if (bDiff > maxDist) maxDist = bDiff;
+        for (EnumChatFormat color : candidates) {
+            int maxDist = Math.max(Math.abs(color.getRed() - red),
+                    Math.max(Math.abs(color.getGreen() - green), Math.abs(color.getBlue() - blue)));
             if (maxDist < minMaxDist) {
                 minMaxDist = maxDist;
                 closestColor = color;
@@ -121,6 +147,58 @@ public class TextColor {
         return closestColor;
     }
 
+    /**
+     * Creates lookup table of closest color candidates for each quantized color cube.
+     * A color is a candidate if its smallest possible distance to the cube is not larger
+     * than the largest possible distance of the best color to the cube.
+     *
+     * @return  lookup table of closest color candidates
+     */
+    private static EnumChatFormat[][] createClosestColorCandidates() {
+        int cubes = 1 << LOOKUP_BITS;
+        int size = 256 / cubes;
+        EnumChatFormat[][] table = new EnumChatFormat[cubes * cubes * cubes][];
+        for (int cube = 0; cube < table.length; cube++) {
+            int[] min = {(cube >> (LOOKUP_BITS * 2)) * size, ((cube >> LOOKUP_BITS) & (cubes - 1)) * size, (cube & (cubes - 1)) * size};
+            int bestMaxDist = Integer.MAX_VALUE;
+            for (EnumChatFormat color : EnumChatFormat.VALUES) {
+                bestMaxDist = Math.min(bestMaxDist, getDistanceToCube(color, min, size, true));
+            }
+            List<EnumChatFormat> candidates = new ArrayList<>();
+            for (EnumChatFormat color : EnumChatFormat.VALUES) {
+                if (getDistanceToCube(color, min, size, false) <= bestMaxDist) candidates.add(color);
+            }
+            table[cube] = candidates.toArray(new EnumChatFormat[0]);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the smallest or the largest distance of legacy color to any color in given cube
+     *
+     * @param   color
+     *          legacy color to get distance of
+     * @param   min
+     *          lowest red, green and blue value of the cube
+     * @param   size
+     *          size of cube side
+     * @param   largest
+     *          {@code true} for the largest distance, {@code false} for the smallest
+     * @return  distance of color to the cube
+     */
+    private static int getDistanceToCube(@NotNull EnumChatFormat color, int[] min, int size, boolean largest) {
+        int[] values = {color.getRed(), color.getGreen(), color.getBlue()};
+        int distance = 0;
+        for (int i=0; i<3; i++) {
+            int low = min[i];
+            int high = min[i] + size - 1;
+            int channelDistance = largest ? Math.max(Math.abs(values[i] - low), Math.abs(values[i] - high)) :
+                    Math.max(0, Math.max(low - values[i], values[i] - high));
+            distance = Math.max(distance, channelDistance);
+        }
+        return distance;
+    }
+
     /**
      * Returns {@code red} value
      *
@@ -2,12 +2,9 @@ package me.neznamy.tab.shared.chat.rgb;
 
 import lombok.Getter;
 import me.neznamy.tab.shared.chat.EnumChatFormat;
-import me.neznamy.tab.shared.chat.IChatBaseComponent;
-import me.neznamy.tab.shared.chat.rgb.format.BukkitFormat;
-import me.neznamy.tab.shared.chat.rgb.format.HtmlFormat;
-import me.neznamy.tab.shared.chat.rgb.format.KyoriFormat;
+import me.neznamy.tab.shared.chat.TextColor;
+import me.neznamy.tab.shared.chat.rgb.format.HexColorFormat;
 import me.neznamy.tab.shared.chat.rgb.format.MiniMessageFormat;
-import me.neznamy.tab.shared.chat.rgb.format.UnnamedFormat1;
 import me.neznamy.tab.shared.chat.rgb.gradient.CMIGradient;
 import me.neznamy.tab.shared.chat.rgb.gradient.CommonGradient;
 import me.neznamy.tab.shared.chat.rgb.gradient.GradientPattern;
@@ -18,9 +15,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import me.neznamy.tab.shared.chat.rgb.format.CMIFormat;
 import me.neznamy.tab.shared.chat.rgb.format.RGBFormatter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A helper class to reformat all RGB formats into the default #RRGGBB and apply gradients
@@ -36,6 +33,10 @@ public class RGBUtils {
     /** Registered gradient patterns */
     private final GradientPattern[] gradients;
 
+    /** Order in which magic codes are written when converting to legacy text */
+    private final EnumChatFormat[] MAGIC_CODE_ORDER = {EnumChatFormat.BOLD, EnumChatFormat.ITALIC,
+            EnumChatFormat.UNDERLINE, EnumChatFormat.STRIKETHROUGH, EnumChatFormat.OBFUSCATED};
+
     /** TAB's RGB pattern, used to convert text to bukkit format for boss bar */
     private final Pattern tabPattern = Pattern.compile("#[0-9a-fA-F]{6}");
 
@@ -50,11 +51,7 @@ public class RGBUtils {
         if (ReflectionUtils.classExists("net.kyori.adventure.text.minimessage.MiniMessage")) {
             list.add(new MiniMessageFormat());
         }
-        list.add(new BukkitFormat());
-        list.add(new CMIFormat());
-        list.add(new UnnamedFormat1());
-        list.add(new HtmlFormat());
-        list.add(new KyoriFormat());
+        list.add(new HexColorFormat());
         formats = list.toArray(new RGBFormatter[0]);
 
         gradients = new GradientPattern[] {
@@ -80,6 +77,7 @@ public class RGBUtils {
      * @return  text where everything is converted to #RRGGBB
      */
     public @NotNull String applyFormats(@NotNull String text) {
+        if (!containsFormatMarker(text, true)) return text;
         String replaced = text;
         for (GradientPattern pattern : gradients) {
             replaced = pattern.applyPattern(replaced, false);
@@ -99,6 +97,7 @@ public class RGBUtils {
      * @return  text where all gradients with static text are converted to #RRGGBB
      */
     public @NotNull String applyCleanGradients(@NotNull String text) {
+        if (!containsFormatMarker(text, false)) return text;
         String replaced = text;
         for (GradientPattern pattern : gradients) {
             replaced = pattern.applyPattern(replaced, true);
@@ -106,6 +105,26 @@ public class RGBUtils {
         return replaced;
     }
 
+    /**
+     * Returns {@code true} if text contains a character any RGB format or gradient
+     * may start with, {@code false} if not. Text without any of them can be skipped entirely.
+     *
+     * @param   text
+     *          text to check
+     * @param   includeColors
+     *          {@code true} to check for RGB formats and gradients, {@code false} to only check for gradients
+     * @return  {@code true} if text may contain a format, {@code false} if not
+     */
+    private boolean containsFormatMarker(@NotNull String text, boolean includeColors) {
+        for (int i=0; i<text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '<' || c == '{') return true;
+            if (includeColors && (c == '#' || (c == 'x' && i > 0 &&
+                    (text.charAt(i-1) == '&' || text.charAt(i-1) == EnumChatFormat.COLOR_CHAR)))) return true;
+        }
+        return false;
+    }
+
     /**
      * Converts TAB's RGB format (#RRGGBB) into bukkit one
      * (&amp;x&amp;r&amp;r&amp;g&amp;g&amp;b&amp;b) for modern
@@ -140,13 +159,123 @@ public class RGBUtils {
      * Converts all hex codes in given string to legacy codes.
      * Also removes redundant color codes caused by this operation
      * to properly fit in limits.
+     * Gives the same result as converting text to component and back
+     * to legacy text, without building the component.
      *
      * @param   text
      *          text to convert
      * @return  translated text
      */
     public @NotNull String convertRGBtoLegacy(@NotNull String text) {
-        return IChatBaseComponent.fromColoredText(text).toLegacyText();
+        String colored = applyFormats(EnumChatFormat.color(text));
+        int length = colored.length();
+        StringBuilder result = new StringBuilder(length);
+        StringBuilder segment = new StringBuilder();
+        EnumChatFormat color = null;
+        int magicCodes = 0;
+        String previousFormatting = "";
+        for (int i=0; i<length; i++) {
+            char c = colored.charAt(i);
+            if (c == EnumChatFormat.COLOR_CHAR) {
+                i++;
+                if (i >= length) break;
+                EnumChatFormat format = EnumChatFormat.getByChar(Character.toLowerCase(colored.charAt(i)));
+                if (format == null) continue;
+                if (segment.length() > 0) {
+                    previousFormatting = appendLegacySegment(result, segment, color, magicCodes, previousFormatting);
+                }
+                switch (format) {
+                    case OBFUSCATED:
+                    case BOLD:
+                    case STRIKETHROUGH:
+                    case UNDERLINE:
+                    case ITALIC:
+                        magicCodes |= getMagicCodeBit(format);
+                        break;
+                    default:
+                        color = format == EnumChatFormat.RESET ? EnumChatFormat.WHITE : format;
+                        magicCodes = 0;
+                        break;
+                }
+            } else if (c == '#' && length > i+6 && isHexCode(colored, i+1)) {
+                EnumChatFormat newColor;
+                if (length - i >= 9 && colored.charAt(i+7) == '|' && EnumChatFormat.getByChar(colored.charAt(i+8)) != null) {
+                    newColor = EnumChatFormat.getByChar(colored.charAt(i+8));
+                    i += 8;
+                } else {
+                    newColor = TextColor.getClosestColor(Integer.parseInt(colored.substring(i+1, i+7), 16));
+                    i += 6;
+                }
+                if (segment.length() > 0) {
+                    previousFormatting = appendLegacySegment(result, segment, color, magicCodes, previousFormatting);
+                }
+                color = newColor;
+                magicCodes = 0;
+            } else {
+                segment.append(c);
+            }
+        }
+        appendLegacySegment(result, segment, color, magicCodes, previousFormatting);
+        return result.toString();
+    }
+
+    /**
+     * Appends text segment into result, prefixed with its color and magic codes if they
+     * are different from previous segment. Clears the segment afterwards.
+     *
+     * @param   result
+     *          builder to append to
+     * @param   segment
+     *          text of the segment
+     * @param   color
+     *          color of the segment, {@code null} if none
+     * @param   magicCodes
+     *          bit mask of magic codes of the segment, ordered as in {@link EnumChatFormat}
+     * @param   previousFormatting
+     *          color and magic codes of previous segment
+     * @return  color and magic codes of this segment
+     */
+    private @NotNull String appendLegacySegment(@NotNull StringBuilder result, @NotNull StringBuilder segment,
+                                                @Nullable EnumChatFormat color, int magicCodes, @NotNull String previousFormatting) {
+        String formatting = getFormatting(color, magicCodes);
+        if (!formatting.equals(previousFormatting)) result.append(formatting);
+        result.append(segment);
+        segment.setLength(0);
+        return formatting;
+    }
+
+    /**
+     * Returns color and magic codes as legacy text
+     *
+     * @param   color
+     *          color, {@code null} if none
+     * @param   magicCodes
+     *          bit mask of magic codes, ordered as in {@link EnumChatFormat}
+     * @return  color and magic codes as legacy text
+     */
+    private @NotNull String getFormatting(@Nullable EnumChatFormat color, int magicCodes) {
+        if (magicCodes == 0) {
+            if (color == null) return "";
+            //preventing unwanted &r -> &f conversion and stopping the <1.13 client bug fix from working
+            return color == EnumChatFormat.WHITE ? EnumChatFormat.RESET.getFormat() : color.getFormat();
+        }
+        StringBuilder builder = new StringBuilder(12);
+        if (color != null) builder.append(color == EnumChatFormat.WHITE ? EnumChatFormat.RESET.getFormat() : color.getFormat());
+        for (EnumChatFormat magicCode : MAGIC_CODE_ORDER) {
+            if ((magicCodes & getMagicCodeBit(magicCode)) != 0) builder.append(magicCode.getFormat());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns bit representing magic code in magic code bit mask
+     *
+     * @param   magicCode
+     *          magic code to get bit of
+     * @return  bit of the magic code
+     */
+    private int getMagicCodeBit(@NotNull EnumChatFormat magicCode) {
+        return 1 << (magicCode.ordinal() - EnumChatFormat.OBFUSCATED.ordinal());
     }
 
     /**
@@ -158,8 +287,22 @@ public class RGBUtils {
      * @return  {@code true} if valid, {@code false} if not
      */
     public boolean isHexCode(@NotNull String string) {
-        if (string.length() != 6) return false;
-        for (int i=0; i<6; i++) {
+        return string.length() == 6 && isHexCode(string, 0);
+    }
+
+    /**
+     * Returns true if string contains a valid 6-digit combination of
+     * hexadecimal numbers at specified index, false if not
+     *
+     * @param   string
+     *          string to check
+     * @param   index
+     *          index of first digit
+     * @return  {@code true} if valid, {@code false} if not
+     */
+    private boolean isHexCode(@NotNull String string, int index) {
+        if (index + 6 > string.length()) return false;
+        for (int i=index; i<index+6; i++) {
             char c = string.charAt(i);
             if (c < 48 || (c > 57 && c < 65) || (c > 70 && c < 97) || c > 102) return false;
         }
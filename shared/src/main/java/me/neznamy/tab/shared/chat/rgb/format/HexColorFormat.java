@@ -0,0 +1,133 @@
+package me.neznamy.tab.shared.chat.rgb.format;
+
+import me.neznamy.tab.shared.chat.EnumChatFormat;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Formatter converting all supported hex color formats into #RRGGBB in a single pass:
+ * <ul>
+ *     <li>&amp;x&amp;R&amp;R&amp;G&amp;G&amp;B&amp;B</li>
+ *     <li>{#RRGGBB}</li>
+ *     <li>&amp;#RRGGBB</li>
+ *     <li>#&lt;RRGGBB&gt;</li>
+ *     <li>&lt;#RRGGBB&gt;</li>
+ * </ul>
+ * If text does not contain any of the formats, it is returned without copying.
+ */
+public class HexColorFormat implements RGBFormatter {
+
+    @Override
+    public @NotNull String reformat(@NotNull String text) {
+        StringBuilder sb = null;
+        int copyFrom = 0;
+        int length = text.length();
+        for (int i=0; i<length; i++) {
+            char c = text.charAt(i);
+            int start = i;
+            int hexStart;
+            int end;
+            if ((c == '&' || c == EnumChatFormat.COLOR_CHAR) && i+1 < length && text.charAt(i+1) == 'x' && isBukkitCode(text, i+2)) {
+                // &x&R&R&G&G&B&B
+                if (sb == null) sb = new StringBuilder(length);
+                sb.append(text, copyFrom, start).append('#');
+                for (int j=0; j<6; j++) sb.append(text.charAt(i+3+j*2));
+                copyFrom = i+14;
+                i += 13;
+                continue;
+            }
+            if (c == '{' && i+1 < length && text.charAt(i+1) == '#' && isHex(text, i+2) && charAt(text, i+8) == '}') {
+                // {#RRGGBB}
+                hexStart = i+2;
+                end = i+9;
+            } else {
+                if (c == '&' && charAt(text, i+1) == '#') {
+                    // &#RRGGBB and &#<RRGGBB>
+                    i++;
+                    c = '#';
+                }
+                if (c == '#' && charAt(text, i+1) == '<' && isHex(text, i+2) && charAt(text, i+8) == '>') {
+                    // #<RRGGBB>
+                    hexStart = i+2;
+                    end = i+9;
+                } else if (c == '<' && charAt(text, i+1) == '#' && isHex(text, i+2) && charAt(text, i+8) == '>') {
+                    // <#RRGGBB>
+                    hexStart = i+2;
+                    end = i+9;
+                } else if (i != start) {
+                    // &# without a valid format after
+                    hexStart = -1;
+                    end = i+1;
+                } else {
+                    continue;
+                }
+            }
+            if (sb == null) sb = new StringBuilder(length);
+            sb.append(text, copyFrom, start).append('#');
+            if (hexStart != -1) sb.append(text, hexStart, hexStart+6);
+            copyFrom = end;
+            i = end-1;
+        }
+        if (sb == null) return text;
+        return sb.append(text, copyFrom, length).toString();
+    }
+
+    /**
+     * Returns character at specified index or {@code 0} if index is out of bounds
+     *
+     * @param   text
+     *          text to get character from
+     * @param   index
+     *          index of character
+     * @return  character at index or {@code 0} if out of bounds
+     */
+    private char charAt(@NotNull String text, int index) {
+        return index < text.length() ? text.charAt(index) : 0;
+    }
+
+    /**
+     * Returns {@code true} if text contains 6 hexadecimal digits at specified index
+     *
+     * @param   text
+     *          text to check
+     * @param   index
+     *          index of first digit
+     * @return  {@code true} if 6 hex digits are present, {@code false} if not
+     */
+    private boolean isHex(@NotNull String text, int index) {
+        if (index + 6 > text.length()) return false;
+        for (int i=index; i<index+6; i++) {
+            if (!isHexDigit(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if text contains 12 characters of bukkit hex color code
+     * (&amp;R&amp;R&amp;G&amp;G&amp;B&amp;B) at specified index
+     *
+     * @param   text
+     *          text to check
+     * @param   index
+     *          index of first character
+     * @return  {@code true} if code is present, {@code false} if not
+     */
+    private boolean isBukkitCode(@NotNull String text, int index) {
+        if (index + 12 > text.length()) return false;
+        for (int i=index; i<index+12; i++) {
+            char c = text.charAt(i);
+            if (c != '&' && c != EnumChatFormat.COLOR_CHAR && !isHexDigit(c)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if character is a hexadecimal digit, {@code false} if not
+     *
+     * @param   c
+     *          character to check
+     * @return  {@code true} if character is a hexadecimal digit, {@code false} if not
+     */
+    private boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
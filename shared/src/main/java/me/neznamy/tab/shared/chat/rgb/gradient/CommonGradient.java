@@ -31,7 +31,7 @@ public class CommonGradient implements GradientPattern {
             TextColor start = new TextColor(format.substring(startColorStart, startColorStart+6), legacyColor);
             String message = format.substring(messageStart+2, format.length()-10);
             TextColor end = new TextColor(format.substring(format.length()-endColorStartSub, format.length()-endColorStartSub+6));
-            String applied = asGradient(start, message, end);
+            String applied = GradientCache.get(this, start, message, end);
             replaced = replaced.replace(format, applied);
         }
         m = pattern.matcher(replaced);
@@ -41,7 +41,7 @@ public class CommonGradient implements GradientPattern {
             TextColor start = new TextColor(format.substring(startColorStart, startColorStart+6));
             String message = format.substring(messageStart, format.length()-10);
             TextColor end = new TextColor(format.substring(format.length()-endColorStartSub, format.length()-endColorStartSub+6));
-            String applied = asGradient(start, message, end);
+            String applied = GradientCache.get(this, start, message, end);
             replaced = replaced.replace(format, applied);
         }
         return replaced;
@@ -0,0 +1,64 @@
+package me.neznamy.tab.shared.chat.rgb.gradient;
+
+import lombok.EqualsAndHashCode;
+import me.neznamy.tab.shared.chat.EnumChatFormat;
+import me.neznamy.tab.shared.chat.TextColor;
+import me.neznamy.tab.shared.util.ComponentCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cache of expanded gradients shared by all gradient patterns, so that gradients
+ * in values with placeholders are not expanded again on every refresh if
+ * the text inside the gradient did not change.
+ */
+class GradientCache {
+
+    /** Expanded gradients by colors and text */
+    private static final ComponentCache<Key, String> cache = new ComponentCache<>("gradient", 1000,
+            (key, clientVersion) -> key.pattern.asGradient(key.start, key.text, key.end));
+
+    /**
+     * Returns gradient text based on start color, text and end color from cache,
+     * expanding it using pattern's {@link GradientPattern#asGradient(TextColor, String, TextColor)}
+     * if not present.
+     *
+     * @param   pattern
+     *          pattern expanding the gradient
+     * @param   start
+     *          start color
+     * @param   text
+     *          text to be reformatted
+     * @param   end
+     *          end color
+     * @return  reformatted text
+     */
+    static @NotNull String get(@NotNull GradientPattern pattern, @NotNull TextColor start, @NotNull String text, @NotNull TextColor end) {
+        return cache.get(new Key(pattern, start, end, text), null);
+    }
+
+    /**
+     * Key of an expanded gradient. Colors are compared by RGB value and forced legacy color.
+     */
+    @EqualsAndHashCode(onlyExplicitlyIncluded = true)
+    private static class Key {
+
+        @NotNull private final GradientPattern pattern;
+        @NotNull private final TextColor start;
+        @NotNull private final TextColor end;
+        @EqualsAndHashCode.Include private final int startRgb;
+        @EqualsAndHashCode.Include private final int endRgb;
+        @EqualsAndHashCode.Include @Nullable private final EnumChatFormat legacyColor;
+        @EqualsAndHashCode.Include @NotNull private final String text;
+
+        private Key(@NotNull GradientPattern pattern, @NotNull TextColor start, @NotNull TextColor end, @NotNull String text) {
+            this.pattern = pattern;
+            this.start = start;
+            this.end = end;
+            this.startRgb = start.getRgb();
+            this.endRgb = end.getRgb();
+            this.legacyColor = start.isLegacyColorForced() ? start.getLegacyColor() : null;
+            this.text = text;
+        }
+    }
+}
@@ -29,7 +29,7 @@ public class KyoriGradient implements GradientPattern {
             TextColor start = new TextColor(format.substring(11, 17), legacyColor);
             String message = format.substring(28, format.length()-11);
             TextColor end = new TextColor(format.substring(21, 27));
-            String applied = asGradient(start, message, end);
+            String applied = GradientCache.get(this, start, message, end);
             replaced = replaced.replace(format, applied);
         }
         m = pattern.matcher(replaced);
@@ -39,7 +39,7 @@ public class KyoriGradient implements GradientPattern {
             TextColor start = new TextColor(format.substring(11, 17));
             String message = format.substring(26, format.length()-11);
             TextColor end = new TextColor(format.substring(19, 25));
-            String applied = asGradient(start, message, end);
+            String applied = GradientCache.get(this, start, message, end);
             replaced = replaced.replace(format, applied);
         }
         return replaced;
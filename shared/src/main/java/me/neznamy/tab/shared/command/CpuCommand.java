@@ -2,16 +2,24 @@ package me.neznamy.tab.shared.command;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import me.neznamy.tab.api.cpu.LatencyStatistics;
+
+import me.neznamy.tab.shared.platform.BufferedTabList;
+import me.neznamy.tab.shared.platform.Scoreboard;
 import me.neznamy.tab.shared.platform.TabPlayer;
+import me.neznamy.tab.shared.platform.UpdateQueue;
 import me.neznamy.tab.shared.chat.EnumChatFormat;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
 import me.neznamy.tab.api.placeholder.Placeholder;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.TabConstants;
+import me.neznamy.tab.shared.placeholders.LoadGovernor;
+import me.neznamy.tab.shared.util.ComponentCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -42,6 +50,7 @@ public class CpuCommand extends SubCommand {
         for (Map<String, Float> map : features.values()) {
             featuresTotal += map.values().stream().mapToDouble(Float::floatValue).sum();
         }
+        Map<String, Map<String, LatencyStatistics>> latencies = tab.getCPUManager().getFeatureLatencies();
 
         sendMessage(sender, " ");
         sendMessage(sender, "&8&l" + LINE_CHAR + "&8&m             &r&8&l[ &bTAB CPU Stats &8&l]&r&8&l&m             ");
@@ -49,13 +58,24 @@ public class CpuCommand extends SubCommand {
         sendMessage(sender, SEPARATOR);
         sendMessage(sender, "&8&l" + LINE_CHAR + " &6Top 5 placeholders:");
         printPlaceholders(sender, placeholders);
+        LoadGovernor governor = tab.getPlaceholderManager().getLoadGovernor();
+        if (governor.isEnabled()) {
+            sendMessage(sender, String.format("&8&l%s &7Cosmetic refresh slowdown - %sx &8(skipped refreshes %s)", LINE_CHAR,
+                    governor.getStretch(), governor.getSkippedRefreshes()));
+        }
         sendMessage(sender, SEPARATOR);
         if (sender != null) {
-            sendToPlayer(sender, features);
+            sendToPlayer(sender, features, latencies);
         } else {
-            sendToConsole(features);
+            sendToConsole(features, latencies);
         }
         sendMessage(sender, SEPARATOR);
+        sendMessage(sender, "&8&l" + LINE_CHAR + " &6Component caches (since startup):");
+        printCaches(sender);
+        sendMessage(sender, SEPARATOR);
+        sendMessage(sender, "&8&l" + LINE_CHAR + " &6Packets (since startup):");
+        printPackets(sender);
+        sendMessage(sender, SEPARATOR);
         sendMessage(sender, String.format("&8&l%s &6&lPlaceholders Total: &a&l%s%%", LINE_CHAR, colorize(decimal3.format(placeholdersTotal), 10, 5)));
         sendMessage(sender, String.format("&8&l%s &6&lPlugin internals: &a&l%s%%", LINE_CHAR, colorize(decimal3.format(featuresTotal-placeholdersTotal), 10, 5)));
         sendMessage(sender, String.format("&8&l%s &6&lTotal: &e&l%s%%", LINE_CHAR, colorize(decimal3.format(featuresTotal), 10, 5)));
@@ -69,20 +89,51 @@ public class CpuCommand extends SubCommand {
             if (printCounter++ == 5) break;
             String refresh = "";
             Placeholder p = TAB.getInstance().getPlaceholderManager().getPlaceholder(entry.getKey());
-            if (p.getRefresh() != -1) refresh = " &8(" + p.getRefresh() + ")&7";
+            if (p.getRefresh() != -1) {
+                int effectiveRefresh = TAB.getInstance().getPlaceholderManager().getAdaptiveRefresh().getEffectiveRefresh(p);
+                refresh = " &8(" + (effectiveRefresh == p.getRefresh() ? p.getRefresh() : p.getRefresh() + " -> " + effectiveRefresh) + ")&7";
+            }
             String colorized = entry.getKey().startsWith("%sync:") ? "&c" + decimal3.format(entry.getValue()) : colorize(decimal3.format(entry.getValue()), 1, 0.3f);
             sendMessage(sender, String.format("&8&l%s &7%s - %s%%", LINE_CHAR, entry.getKey() + refresh, colorized));
         }
     }
 
-    public void sendToConsole(@NotNull Map<String, Map<String, Float>> features) {
+    private void printCaches(@Nullable TabPlayer sender) {
+        for (ComponentCache<?, ?> cache : ComponentCache.getCaches()) {
+            long hits = cache.getHits();
+            long misses = cache.getMisses();
+            if (hits + misses == 0) continue;
+            sendMessage(sender, String.format("&8&l%s &7%s - hit rate %s%% &8(hits %s, misses %s, evictions %s)", LINE_CHAR,
+                    cache.getName(), decimal3.format(hits * 100d / (hits + misses)), hits, misses, cache.getEvictions()));
+        }
+    }
+
+    private void printPackets(@Nullable TabPlayer sender) {
+        sendMessage(sender, String.format("&8&l%s &7Suppressed team updates - %s", LINE_CHAR, Scoreboard.getSuppressedTeamUpdates()));
+        if (!TAB.getInstance().getFeatureManager().isFeatureEnabled(TabConstants.Feature.UPDATE_QUEUE)) return;
+        int queued = 0;
+        for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
+            queued += player.getScoreboard().getUpdateQueue().size();
+            if (player.getTabList() instanceof BufferedTabList) queued += ((BufferedTabList) player.getTabList()).getPendingUpdates();
+        }
+        sendMessage(sender, String.format("&8&l%s &7Queued updates - %s", LINE_CHAR, queued));
+        sendMessage(sender, String.format("&8&l%s &7Dropped queued updates - %s", LINE_CHAR,
+                UpdateQueue.getDroppedUpdates() + BufferedTabList.getDroppedUpdates()));
+    }
+
+    public void sendToConsole(@NotNull Map<String, Map<String, Float>> features,
+                              @NotNull Map<String, Map<String, LatencyStatistics>> latencies) {
         TAB.getInstance().sendConsoleMessage("&8&l" + LINE_CHAR + " &6Features:", true);
         for (Entry<String, Map<String, Float>> entry : features.entrySet()) {
             double featureTotal = entry.getValue().values().stream().mapToDouble(Float::floatValue).sum();
             String core = String.format("&8&l%s &7%s &7(%s%%&7):", LINE_CHAR, entry.getKey(), colorize(decimal3.format(featureTotal), 5, 1));
+            Map<String, LatencyStatistics> featureLatencies = latencies.getOrDefault(entry.getKey(), Collections.emptyMap());
             List<String> messages = new ArrayList<>();
             for (Entry<String, Float> type : entry.getValue().entrySet()) {
-                messages.add(String.format("&8&l%s     &7%s - %s%%", LINE_CHAR, type.getKey(), colorize(decimal3.format(type.getValue()), 5, 1)));
+                LatencyStatistics latency = featureLatencies.get(type.getKey());
+                String latencyText = latency == null ? "" : String.format(" &8(p50 %sms, p99 %sms, max %sms)",
+                        formatMillis(latency.getP50()), formatMillis(latency.getP99()), formatMillis(latency.getMax()));
+                messages.add(String.format("&8&l%s     &7%s - %s%%%s", LINE_CHAR, type.getKey(), colorize(decimal3.format(type.getValue()), 5, 1), latencyText));
             }
             TAB.getInstance().sendConsoleMessage(core, true);
             for (String message : messages) {
@@ -91,16 +142,34 @@ public class CpuCommand extends SubCommand {
         }
     }
 
-    public void sendToPlayer(@NotNull TabPlayer sender, @NotNull Map<String, Map<String, Float>> features) {
+    public void sendToPlayer(@NotNull TabPlayer sender, @NotNull Map<String, Map<String, Float>> features,
+                             @NotNull Map<String, Map<String, LatencyStatistics>> latencies) {
         sendMessage(sender, "&8&l" + LINE_CHAR + " &6Features (execute from console for more info):");
         for (Entry<String, Map<String, Float>> entry : features.entrySet()) {
             double featureTotal = entry.getValue().values().stream().mapToDouble(Float::floatValue).sum();
             String core = String.format("&8&l%s &7%s &7(%s%%&7):", LINE_CHAR, entry.getKey(), colorize(decimal3.format(featureTotal), 5, 1));
+            Map<String, LatencyStatistics> featureLatencies = latencies.get(entry.getKey());
+            if (featureLatencies != null) {
+                long p99 = featureLatencies.values().stream().mapToLong(LatencyStatistics::getP99).max().orElse(0);
+                long max = featureLatencies.values().stream().mapToLong(LatencyStatistics::getMax).max().orElse(0);
+                core += String.format(" &8(p99 %sms, max %sms)", formatMillis(p99), formatMillis(max));
+            }
             IChatBaseComponent message = new IChatBaseComponent(EnumChatFormat.color(core));
             sender.sendMessage(message);
         }
     }
 
+    /**
+     * Formats time in nanoseconds as milliseconds
+     *
+     * @param   nanoseconds
+     *          time in nanoseconds
+     * @return  formatted time in milliseconds
+     */
+    private String formatMillis(long nanoseconds) {
+        return decimal3.format(nanoseconds / 1000000d);
+    }
+
     /**
      * Returns colored usage from provided usage
      *
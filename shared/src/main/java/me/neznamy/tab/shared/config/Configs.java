@@ -32,6 +32,7 @@ public class Configs {
     @Getter private final boolean onlineUuidInTabList = config.getBoolean("use-online-uuid-in-tablist", true);
     @Getter private final boolean pipelineInjection = getSecretOption("pipeline-injection", true);
     @Getter private final String serverName = getSecretOption("server-name", "N/A");
+    @Getter private final int processingThreads = Math.max(1, getSecretOption("processing-threads", 1));
 
     //animations.yml file
     @Getter private final ConfigurationFile animationFile = new YamlConfigurationFile(getClass().getClassLoader().getResourceAsStream("animations.yml"),
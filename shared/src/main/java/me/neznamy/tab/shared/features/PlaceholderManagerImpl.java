@@ -2,8 +2,10 @@ package me.neznamy.tab.shared.features;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -12,13 +14,21 @@ import java.util.regex.Pattern;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import me.neznamy.tab.api.placeholder.Placeholder;
 import me.neznamy.tab.api.placeholder.PlaceholderManager;
+import me.neznamy.tab.shared.CpuCounter;
 import me.neznamy.tab.shared.TabConstants;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.event.impl.TabPlaceholderRegisterEvent;
 import me.neznamy.tab.shared.features.types.*;
+import me.neznamy.tab.shared.placeholders.AdaptiveRefreshIntervals;
+import me.neznamy.tab.shared.placeholders.AsyncPlaceholderRequests;
+import me.neznamy.tab.shared.placeholders.AsyncPlayerPlaceholderImpl;
+import me.neznamy.tab.shared.placeholders.AsyncServerPlaceholderImpl;
+import me.neznamy.tab.shared.placeholders.LoadGovernor;
+import me.neznamy.tab.shared.placeholders.PlaceholderRefreshWheel;
 import me.neznamy.tab.shared.placeholders.PlayerPlaceholderImpl;
 import me.neznamy.tab.shared.placeholders.RelationalPlaceholderImpl;
 import me.neznamy.tab.shared.placeholders.ServerPlaceholderImpl;
@@ -42,12 +52,57 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
 
     @Getter private final Map<String, Placeholder> registeredPlaceholders = new HashMap<>();
 
+    /** Pending requests of registered asynchronous placeholders by placeholder identifier, expired every tick */
+    private final Map<String, AsyncPlaceholderRequests<?>> asyncRequests = new ConcurrentHashMap<>();
+
     //map of String-Set of features using placeholder
     @Getter private final Map<String, Set<Refreshable>> placeholderUsage = new ConcurrentHashMap<>();
     private Placeholder[] usedPlaceholders = new Placeholder[0];
 
+    /** Timing wheel deciding which used placeholders should refresh in each tick */
+    private final PlaceholderRefreshWheel refreshWheel = new PlaceholderRefreshWheel(
+            TAB.getInstance().getConfig().getBoolean("placeholders.spread-refreshing", false));
+
     @Getter private final AtomicInteger loopTime = new AtomicInteger();
 
+    /** Counter of placeholder refreshing CPU usage */
+    private final CpuCounter refreshCounter = TAB.getInstance().getCPUManager().counter(featureName, TabConstants.CpuUsageCategory.PLACEHOLDER_REFRESHING);
+
+    /** Adaptive refresh intervals adjusting configured intervals based on change rate and CPU usage */
+    @Getter private final AdaptiveRefreshIntervals adaptiveRefresh = new AdaptiveRefreshIntervals(
+            TAB.getInstance().getConfig().getBoolean("placeholders.adaptive-refresh.enabled", false),
+            TAB.getInstance().getConfig().getInt("placeholders.adaptive-refresh.min-interval", 100),
+            TAB.getInstance().getConfig().getInt("placeholders.adaptive-refresh.max-interval", 10000));
+
+    /** Governor slowing down cosmetic placeholders when CPU usage is over budget */
+    @Getter private final LoadGovernor loadGovernor = new LoadGovernor(
+            TAB.getInstance().getConfiguration().getSecretOption("load-shedding.cpu-budget", 0),
+            TAB.getInstance().getConfiguration().getSecretOption("load-shedding.max-stretch", 8));
+
+    /**
+     * Which player pairs relational placeholders are evaluated for, {@code "all"} for every pair,
+     * {@code "server"} for players on the same server and {@code "world"} for players in the same world.
+     */
+    private final String relationalScope = TAB.getInstance().getConfig().getString("placeholders.relational-scope", "all").toLowerCase(Locale.US);
+
+    /** Maximum amount of relational player pairs to evaluate in a single tick, {@code 0} or less for unlimited */
+    private final int relationalPairBudget = TAB.getInstance().getConfiguration().getSecretOption("relational-placeholder-pair-budget", 20000);
+
+    /** Maximum amount of pending requests of a single asynchronous player placeholder */
+    private final int asyncPlaceholderMaxRequests = TAB.getInstance().getConfiguration().getSecretOption("async-placeholder-max-requests", 500);
+
+    /**
+     * Relational placeholders being refreshed, which did not fit into pair budget in a single tick,
+     * mapped to progress of their refresh.
+     */
+    private final Map<RelationalPlaceholderImpl, RelationalProgress> relationalProgress = new LinkedHashMap<>();
+
+    /**
+     * Player placeholders which were due while a worker shard was still busy, by index of the shard.
+     * They are requested on the next submission to the shard. Only accessed from main thread.
+     */
+    private final Map<Integer, Set<PlayerPlaceholderImpl>> missedPlaceholders = new HashMap<>();
+
     @Getter @NonNull private final TabExpansion tabExpansion = TAB.getInstance().getConfig().getBoolean("placeholders.register-tab-expansion", false) ?
             TAB.getInstance().getPlatform().createTabExpansion() : new EmptyTabExpansion();
 
@@ -55,81 +110,313 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
         TAB.getInstance().getCPUManager().startRepeatingMeasuredTask(TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL, featureName, TabConstants.CpuUsageCategory.PLACEHOLDER_REFRESHING, this::refresh);
         TAB.getInstance().getMisconfigurationHelper().fixRefreshIntervals(refreshIntervals);
         defaultRefresh = refreshIntervals.getOrDefault("default-refresh-interval", 500);
+        if (adaptiveRefresh.isEnabled()) {
+            TAB.getInstance().getCPUManager().startRepeatingMeasuredTask(10000, featureName, TabConstants.CpuUsageCategory.PLACEHOLDER_REFRESHING, () -> {
+                if (adaptiveRefresh.adjust(usedPlaceholders, TAB.getInstance().getCPUManager().getPlaceholderUsage())) {
+                    refreshWheel.rebuild(usedPlaceholders, adaptiveRefresh::getEffectiveRefresh);
+                }
+            });
+        }
+        TAB.getInstance().getCPUManager().setLoadGovernor(loadGovernor.isEnabled() ? loadGovernor : null);
     }
 
     private void refresh() {
+        for (AsyncPlaceholderRequests<?> requests : asyncRequests.values()) {
+            requests.expire();
+        }
         int loopTime = this.loopTime.addAndGet(TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL);
         int size = TAB.getInstance().getOnlinePlayers().length;
         Map<TabPlayer, Set<Refreshable>> update = new HashMap<>(size);
         Map<TabPlayer, Set<Refreshable>> forceUpdate = new HashMap<>(size);
         boolean somethingChanged = false;
-        for (Placeholder placeholder : usedPlaceholders) {
-            if (placeholder.getRefresh() == -1 || loopTime % placeholder.getRefresh() != 0) continue;
-            if (placeholder instanceof RelationalPlaceholderImpl && updateRelationalPlaceholder((RelationalPlaceholderImpl) placeholder, forceUpdate)) somethingChanged = true;
-            if (placeholder instanceof PlayerPlaceholderImpl && updatePlayerPlaceholder((PlayerPlaceholderImpl) placeholder, update)) somethingChanged = true;
+        List<Placeholder> duePlaceholders = new ArrayList<>();
+        int tick = loopTime / TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL;
+        refreshWheel.collectDuePlaceholders(tick, duePlaceholders);
+        List<PlayerPlaceholderImpl> playerPlaceholders = new ArrayList<>();
+        for (Placeholder placeholder : duePlaceholders) {
+            if (loadGovernor.shouldSkip(placeholder, adaptiveRefresh.getEffectiveRefresh(placeholder), tick,
+                    placeholderUsage.getOrDefault(placeholder.getIdentifier(), Collections.emptySet()))) continue;
+            if (placeholder instanceof RelationalPlaceholderImpl) relationalProgress.computeIfAbsent((RelationalPlaceholderImpl) placeholder,
+                    p -> new RelationalProgress(TAB.getInstance().getOnlinePlayers()));
+            if (placeholder instanceof PlayerPlaceholderImpl) playerPlaceholders.add((PlayerPlaceholderImpl) placeholder);
             if (placeholder instanceof ServerPlaceholderImpl && updateServerPlaceholder((ServerPlaceholderImpl) placeholder, update)) somethingChanged = true;
         }
+        if (!relationalProgress.isEmpty() && updateRelationalPlaceholders(forceUpdate)) somethingChanged = true;
+        if (!playerPlaceholders.isEmpty() && updatePlayerPlaceholders(playerPlaceholders, update)) somethingChanged = true;
         if (somethingChanged) refresh(forceUpdate, update);
     }
     
     private void refresh(@NonNull Map<TabPlayer, Set<Refreshable>> forceUpdate, Map<TabPlayer, @NonNull Set<Refreshable>> update) {
         long startRefreshTime = System.nanoTime();
-        for (Entry<TabPlayer, Set<Refreshable>> entry : update.entrySet()) {
-            for (Refreshable r : entry.getValue()) {
-                long startTime = System.nanoTime();
-                r.refresh(entry.getKey(), false);
-                TAB.getInstance().getCPUManager().addTime(r.getFeatureName(), r.getRefreshDisplayName(), System.nanoTime() - startTime);
+        TabPlayer[] players = TAB.getInstance().getOnlinePlayers();
+        for (TabPlayer player : players) {
+            player.getTabList().startBatch();
+        }
+        try {
+            refreshFeatures(forceUpdate, update);
+        } finally {
+            long startTime = System.nanoTime();
+            for (TabPlayer player : players) {
+                player.getTabList().flushBatch();
             }
+            TAB.getInstance().getCPUManager().addTime(TabConstants.Feature.PLAYER_LIST,
+                    TabConstants.CpuUsageCategory.FLUSHING_TABLIST_UPDATES, System.nanoTime() - startTime);
         }
-        for (Entry<TabPlayer, Set<Refreshable>> entry : forceUpdate.entrySet()) {
+        //subtracting back usage by this method from placeholder refreshing usage, since it is already counted under different name in this method
+        refreshCounter.addUsage(startRefreshTime-System.nanoTime());
+    }
+
+    /**
+     * Refreshes features for players whose placeholders changed value. Time of each
+     * player's refresh is added to feature's usage, while a single latency sample
+     * with total time of refreshing all players is recorded for each feature.
+     *
+     * @param   forceUpdate
+     *          features to force refresh for each player
+     * @param   update
+     *          features to refresh for each player
+     */
+    private void refreshFeatures(@NonNull Map<TabPlayer, Set<Refreshable>> forceUpdate, Map<TabPlayer, @NonNull Set<Refreshable>> update) {
+        Map<Refreshable, long[]> totalTimes = new IdentityHashMap<>();
+        try {
+            refreshFeatures(update, false, totalTimes);
+            refreshFeatures(forceUpdate, true, totalTimes);
+        } finally {
+            totalTimes.forEach((r, time) -> r.getRefreshCounter().recordLatency(time[0]));
+        }
+    }
+
+    private void refreshFeatures(@NonNull Map<TabPlayer, Set<Refreshable>> update, boolean force, @NonNull Map<Refreshable, long[]> totalTimes) {
+        for (Entry<TabPlayer, Set<Refreshable>> entry : update.entrySet()) {
             for (Refreshable r : entry.getValue()) {
                 long startTime = System.nanoTime();
-                r.refresh(entry.getKey(), true);
-                TAB.getInstance().getCPUManager().addTime(r.getFeatureName(), r.getRefreshDisplayName(), System.nanoTime() - startTime);
+                r.refresh(entry.getKey(), force, entry.getKey().getDirtyProperties());
+                long time = System.nanoTime() - startTime;
+                r.getRefreshCounter().addUsage(time);
+                totalTimes.computeIfAbsent(r, x -> new long[1])[0] += time;
             }
         }
-        //subtracting back usage by this method from placeholder refreshing usage, since it is already counted under different name in this method
-        TAB.getInstance().getCPUManager().addTime(featureName, TabConstants.CpuUsageCategory.PLACEHOLDER_REFRESHING, startRefreshTime-System.nanoTime());
     }
 
-    private boolean updateRelationalPlaceholder(@NonNull RelationalPlaceholderImpl placeholder, @NonNull Map<TabPlayer, Set<Refreshable>> forceUpdate) {
+    /**
+     * Continues refreshing of relational placeholders in progress. Only pairs which can see each
+     * other based on configured scope are evaluated. Once amount of evaluated pairs reaches the
+     * budget, remaining viewers are left for the next tick. Viewers are taken from a snapshot
+     * of online players made when the refresh started, so joins and quits in between
+     * do not make any viewer skipped or evaluated twice.
+     *
+     * @param   forceUpdate
+     *          map to add features to force refresh into
+     * @return  {@code true} if any placeholder changed value, {@code false} if not
+     */
+    private boolean updateRelationalPlaceholders(@NonNull Map<TabPlayer, Set<Refreshable>> forceUpdate) {
         boolean somethingChanged = false;
-        long startTime = System.nanoTime();
-        for (TabPlayer p1 : TAB.getInstance().getOnlinePlayers()) {
-            for (TabPlayer p2 : TAB.getInstance().getOnlinePlayers()) {
-                if (placeholder.update(p1, p2)) {
-                    forceUpdate.computeIfAbsent(p2, x -> new HashSet<>()).addAll(placeholderUsage.get(placeholder.getIdentifier()));
-                    somethingChanged = true;
-                }
-                if (placeholder.update(p2, p1)) {
-                    forceUpdate.computeIfAbsent(p1, x -> new HashSet<>()).addAll(placeholderUsage.get(placeholder.getIdentifier()));
-                    somethingChanged = true;
+        TabPlayer[] players = TAB.getInstance().getOnlinePlayers();
+        int budget = relationalPairBudget > 0 ? relationalPairBudget : Integer.MAX_VALUE;
+        Iterator<Entry<RelationalPlaceholderImpl, RelationalProgress>> iterator = relationalProgress.entrySet().iterator();
+        while (iterator.hasNext() && budget > 0) {
+            Entry<RelationalPlaceholderImpl, RelationalProgress> entry = iterator.next();
+            RelationalPlaceholderImpl placeholder = entry.getKey();
+            RelationalProgress progress = entry.getValue();
+            Set<Refreshable> usage = placeholderUsage.getOrDefault(placeholder.getIdentifier(), Collections.emptySet());
+            long startTime = System.nanoTime();
+            int evaluations = 0;
+            int changes = 0;
+            while (progress.nextViewer < progress.viewers.length && budget > 0) {
+                TabPlayer viewer = progress.viewers[progress.nextViewer++];
+                if (TAB.getInstance().getPlayer(viewer.getUniqueId()) != viewer) continue; // Left since refresh started
+                for (TabPlayer target : players) {
+                    if (!isRelationalPairVisible(viewer, target)) continue;
+                    budget--;
+                    evaluations++;
+                    if (placeholder.update(viewer, target)) {
+                        changes++;
+                        forceUpdate.computeIfAbsent(target, x -> new HashSet<>()).addAll(usage);
+                        somethingChanged = true;
+                    }
                 }
             }
+            adaptiveRefresh.recordRefresh(placeholder.getIdentifier(), evaluations, changes);
+            long time = System.nanoTime()-startTime;
+            progress.time += time;
+            CpuCounter counter = TAB.getInstance().getCPUManager().placeholderCounter(placeholder.getIdentifier());
+            counter.addUsage(time);
+            if (progress.nextViewer >= progress.viewers.length) {
+                counter.recordLatency(progress.time);
+                iterator.remove();
+            }
         }
-        TAB.getInstance().getCPUManager().addPlaceholderTime(placeholder.getIdentifier(), System.nanoTime()-startTime);
         return somethingChanged;
     }
 
-    private boolean updatePlayerPlaceholder(@NonNull PlayerPlaceholderImpl placeholder, @NonNull Map<TabPlayer, Set<Refreshable>> update) {
+    /**
+     * Returns {@code true} if relational placeholders should be evaluated for given
+     * player pair based on configured scope, {@code false} if not.
+     *
+     * @param   viewer
+     *          viewer of the placeholder
+     * @param   target
+     *          target who is the text displayed on
+     * @return  {@code true} if pair should be evaluated, {@code false} if not
+     */
+    public boolean isRelationalPairVisible(@NonNull TabPlayer viewer, @NonNull TabPlayer target) {
+        if (viewer == target) return true;
+        switch (relationalScope) {
+            case "server":
+                return viewer.getServer().equals(target.getServer());
+            case "world":
+                return viewer.getServer().equals(target.getServer()) && viewer.getWorld().equals(target.getWorld());
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Updates all player placeholders which should be refreshed in this cycle. Thread-safe
+     * placeholders are requested for all players in parallel using a fork-join pool and processed
+     * on this thread. Other placeholders are requested on this thread as well, unless worker shards
+     * are enabled. In that case they are requested on the shards, each shard then hands its outputs
+     * back to this thread, where they are processed and features using changed placeholders are refreshed.
+     * Shards still requesting placeholders from previous cycle are skipped and placeholders which
+     * were due for them are requested on their next submission, so they are delayed, not dropped.
+     *
+     * @param   placeholders
+     *          placeholders to update
+     * @param   update
+     *          map to add features to refresh into
+     * @return  {@code true} if any placeholder processed on this thread changed value, {@code false} if not
+     */
+    private boolean updatePlayerPlaceholders(@NonNull List<PlayerPlaceholderImpl> placeholders, @NonNull Map<TabPlayer, Set<Refreshable>> update) {
+        TabPlayer[] players = TAB.getInstance().getOnlinePlayers();
+        List<PlayerPlaceholderImpl> threadSafe = new ArrayList<>();
+        List<PlayerPlaceholderImpl> other = new ArrayList<>();
+        for (PlayerPlaceholderImpl placeholder : placeholders) {
+            (placeholder.isThreadSafe() ? threadSafe : other).add(placeholder);
+        }
         boolean somethingChanged = false;
-        long startTime = System.nanoTime();
-        for (TabPlayer all : TAB.getInstance().getOnlinePlayers()) {
-            if (placeholder.update(all)) {
-                if (placeholder.getIdentifier().equals(TabConstants.Placeholder.VANISHED)) TAB.getInstance().getFeatureManager().onVanishStatusChange(all);
-                if (placeholder.getIdentifier().equals(TabConstants.Placeholder.GAMEMODE)) TAB.getInstance().getFeatureManager().onGameModeChange(all);
-                update.computeIfAbsent(all, k -> new HashSet<>()).addAll(placeholderUsage.get(placeholder.getIdentifier()));
-                somethingChanged = true;
+        if (TAB.getInstance().getCPUManager().isSharded()) {
+            if (!other.isEmpty() || !missedPlaceholders.isEmpty()) updateOnShards(players, other);
+        } else if (!other.isEmpty()) {
+            long[] requestTimes = new long[other.size()];
+            Object[][] outputs = requestOutputs(other, players, requestTimes);
+            somethingChanged = processOutputs(other, players, outputs, requestTimes, update);
+        }
+        if (threadSafe.isEmpty()) return somethingChanged;
+        Object[][] outputs = new Object[threadSafe.size()][players.length];
+        AtomicLongArray requestTimes = new AtomicLongArray(threadSafe.size());
+        TAB.getInstance().getCPUManager().runParallelTask(players, (player, index) -> {
+            for (int i=0; i<threadSafe.size(); i++) {
+                long startTime = System.nanoTime();
+                outputs[i][index] = threadSafe.get(i).request(player);
+                requestTimes.addAndGet(i, System.nanoTime()-startTime);
+            }
+        });
+        long[] times = new long[threadSafe.size()];
+        for (int i=0; i<times.length; i++) times[i] = requestTimes.get(i);
+        return processOutputs(threadSafe, players, outputs, times, update) || somethingChanged;
+    }
+
+    /**
+     * Requests placeholders which are not thread-safe on worker shards. Placeholders missed
+     * by a shard because it was busy are added to its next submission. Outputs are processed
+     * and features refreshed once the shard hands them back to this thread.
+     *
+     * @param   players
+     *          online players
+     * @param   due
+     *          placeholders due in this cycle
+     */
+    private void updateOnShards(@NonNull TabPlayer[] players, @NonNull List<PlayerPlaceholderImpl> due) {
+        TAB.getInstance().getCPUManager().runShardedTask(featureName, TabConstants.CpuUsageCategory.PLACEHOLDER_REFRESHING, players, shard -> {
+            Set<PlayerPlaceholderImpl> missed = missedPlaceholders.remove(shard);
+            List<PlayerPlaceholderImpl> shardDue = due;
+            if (missed != null) {
+                missed.addAll(due);
+                shardDue = new ArrayList<>(missed);
+            }
+            List<PlayerPlaceholderImpl> requested = shardDue;
+            return shardPlayers -> {
+                long[] requestTimes = new long[requested.size()];
+                Object[][] outputs = requestOutputs(requested, shardPlayers, requestTimes);
+                return () -> {
+                    Map<TabPlayer, Set<Refreshable>> shardUpdate = new HashMap<>();
+                    if (processOutputs(requested, shardPlayers, outputs, requestTimes, shardUpdate)) refresh(new HashMap<>(), shardUpdate);
+                };
+            };
+        }, shard -> {
+            if (!due.isEmpty()) missedPlaceholders.computeIfAbsent(shard, s -> new LinkedHashSet<>()).addAll(due);
+        });
+    }
+
+    /**
+     * Requests outputs of placeholders for all provided players on the calling thread
+     *
+     * @param   placeholders
+     *          placeholders to request
+     * @param   players
+     *          players to request placeholders for
+     * @param   requestTimes
+     *          array to add time spent requesting each placeholder into
+     * @return  outputs by placeholder index and player index
+     */
+    private @NotNull Object[][] requestOutputs(@NonNull List<PlayerPlaceholderImpl> placeholders, @NonNull TabPlayer[] players, long[] requestTimes) {
+        Object[][] outputs = new Object[placeholders.size()][players.length];
+        for (int index=0; index<players.length; index++) {
+            for (int i=0; i<placeholders.size(); i++) {
+                long startTime = System.nanoTime();
+                outputs[i][index] = placeholders.get(i).request(players[index]);
+                requestTimes[i] += System.nanoTime()-startTime;
             }
         }
-        TAB.getInstance().getCPUManager().addPlaceholderTime(placeholder.getIdentifier(), System.nanoTime()-startTime);
+        return outputs;
+    }
+
+    /**
+     * Processes requested outputs of player placeholders. Players who left
+     * since the outputs were requested are skipped.
+     *
+     * @param   placeholders
+     *          requested placeholders
+     * @param   players
+     *          players the placeholders were requested for
+     * @param   outputs
+     *          outputs by placeholder index and player index
+     * @param   requestTimes
+     *          time spent requesting each placeholder in nanoseconds
+     * @param   update
+     *          map to add features to refresh into
+     * @return  {@code true} if any placeholder changed value, {@code false} if not
+     */
+    private boolean processOutputs(@NonNull List<PlayerPlaceholderImpl> placeholders, @NonNull TabPlayer[] players,
+                                   @NonNull Object[][] outputs, long[] requestTimes, @NonNull Map<TabPlayer, Set<Refreshable>> update) {
+        boolean somethingChanged = false;
+        for (int i=0; i<placeholders.size(); i++) {
+            PlayerPlaceholderImpl placeholder = placeholders.get(i);
+            long startTime = System.nanoTime();
+            int changes = 0;
+            for (int index=0; index<players.length; index++) {
+                TabPlayer all = players[index];
+                if (TAB.getInstance().getPlayer(all.getUniqueId()) != all) continue;
+                if (placeholder.update(all, outputs[i][index])) {
+                    changes++;
+                    if (placeholder.getIdentifier().equals(TabConstants.Placeholder.VANISHED)) TAB.getInstance().getFeatureManager().onVanishStatusChange(all);
+                    if (placeholder.getIdentifier().equals(TabConstants.Placeholder.GAMEMODE)) TAB.getInstance().getFeatureManager().onGameModeChange(all);
+                    update.computeIfAbsent(all, k -> new HashSet<>()).addAll(placeholderUsage.getOrDefault(placeholder.getIdentifier(), Collections.emptySet()));
+                    somethingChanged = true;
+                }
+            }
+            adaptiveRefresh.recordRefresh(placeholder.getIdentifier(), players.length, changes);
+            TAB.getInstance().getCPUManager().addPlaceholderTime(placeholder.getIdentifier(), System.nanoTime()-startTime+requestTimes[i]);
+        }
         return somethingChanged;
     }
 
     private boolean updateServerPlaceholder(@NonNull ServerPlaceholderImpl placeholder, @NonNull Map<TabPlayer, Set<Refreshable>> update) {
         boolean somethingChanged = false;
         long startTime = System.nanoTime();
-        if (placeholder.update0()) {
+        boolean changed = placeholder.update0();
+        adaptiveRefresh.recordRefresh(placeholder.getIdentifier(), 1, changed ? 1 : 0);
+        if (changed) {
             somethingChanged = true;
             for (TabPlayer all : TAB.getInstance().getOnlinePlayers()) {
                 update.computeIfAbsent(all, k -> new HashSet<>()).addAll(placeholderUsage.get(placeholder.getIdentifier()));
@@ -150,9 +437,17 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
     public <T extends Placeholder> T registerPlaceholder(@NonNull T placeholder) {
         boolean override = registeredPlaceholders.containsKey(placeholder.getIdentifier());
         registeredPlaceholders.put(placeholder.getIdentifier(), placeholder);
+        if (placeholder instanceof AsyncPlayerPlaceholderImpl) {
+            asyncRequests.put(placeholder.getIdentifier(), ((AsyncPlayerPlaceholderImpl) placeholder).getRequests());
+        } else if (placeholder instanceof AsyncServerPlaceholderImpl) {
+            asyncRequests.put(placeholder.getIdentifier(), ((AsyncServerPlaceholderImpl) placeholder).getRequests());
+        } else {
+            asyncRequests.remove(placeholder.getIdentifier());
+        }
         recalculateUsedPlaceholders();
         if (override && placeholderUsage.containsKey(placeholder.getIdentifier())) {
             for (TabPlayer p : TAB.getInstance().getOnlinePlayers()) {
+                p.markPropertiesDirty(placeholder.getIdentifier());
                 if (!p.isLoaded()) continue;
                 placeholderUsage.get(placeholder.getIdentifier()).forEach(f -> f.refresh(p, true));
             }
@@ -203,6 +498,7 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
 
     public void recalculateUsedPlaceholders() {
         usedPlaceholders = placeholderUsage.keySet().stream().map(this::getPlaceholder).distinct().toArray(Placeholder[]::new);
+        refreshWheel.rebuild(usedPlaceholders, adaptiveRefresh::getEffectiveRefresh);
     }
 
     public @NotNull String findReplacement(@NonNull String placeholder, @NonNull String output) {
@@ -215,8 +511,8 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
             long startTime = System.nanoTime();
             if (p instanceof RelationalPlaceholderImpl) {
                 for (TabPlayer all : TAB.getInstance().getOnlinePlayers()) {
-                    ((RelationalPlaceholderImpl)p).update(connectedPlayer, all);
-                    ((RelationalPlaceholderImpl)p).update(all, connectedPlayer);
+                    if (isRelationalPairVisible(connectedPlayer, all)) ((RelationalPlaceholderImpl)p).update(connectedPlayer, all);
+                    if (isRelationalPairVisible(all, connectedPlayer)) ((RelationalPlaceholderImpl)p).update(all, connectedPlayer);
                 }
             }
             if (p instanceof PlayerPlaceholderImpl) {
@@ -248,6 +544,24 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
         return registerPlaceholder(new PlayerPlaceholderImpl(identifier, refresh, function));
     }
 
+    @Override
+    public @NotNull PlayerPlaceholderImpl registerPlayerPlaceholder(@NonNull String identifier, int refresh, boolean threadSafe,
+                                                                    @NonNull Function<me.neznamy.tab.api.TabPlayer, Object> function) {
+        return registerPlaceholder(new PlayerPlaceholderImpl(identifier, refresh, threadSafe, function));
+    }
+
+    @Override
+    public @NotNull AsyncServerPlaceholderImpl registerAsyncServerPlaceholder(@NonNull String identifier, int refresh, int timeout,
+                                                                              @NonNull Supplier<CompletableFuture<?>> supplier) {
+        return registerPlaceholder(new AsyncServerPlaceholderImpl(identifier, refresh, timeout, supplier));
+    }
+
+    @Override
+    public @NotNull AsyncPlayerPlaceholderImpl registerAsyncPlayerPlaceholder(@NonNull String identifier, int refresh, int timeout,
+                                                                              @NonNull Function<me.neznamy.tab.api.TabPlayer, CompletableFuture<?>> function) {
+        return registerPlaceholder(new AsyncPlayerPlaceholderImpl(identifier, refresh, timeout, asyncPlaceholderMaxRequests, function));
+    }
+
     @Override
     public @NotNull RelationalPlaceholderImpl registerRelationalPlaceholder(
             @NonNull String identifier, int refresh, @NonNull BiFunction<me.neznamy.tab.api.TabPlayer, me.neznamy.tab.api.TabPlayer, Object> function) {
@@ -287,7 +601,24 @@ public class PlaceholderManagerImpl extends TabFeature implements PlaceholderMan
     @Override
     public void unregisterPlaceholder(@NonNull String identifier) {
         registeredPlaceholders.remove(identifier);
+        asyncRequests.remove(identifier);
         placeholderUsage.remove(identifier);
         recalculateUsedPlaceholders();
     }
-}
\ No newline at end of file
+
+    /**
+     * Progress of refreshing a relational placeholder spread over multiple ticks
+     */
+    @RequiredArgsConstructor
+    private static class RelationalProgress {
+
+        /** Online players when the refresh started */
+        @NotNull private final TabPlayer[] viewers;
+
+        /** Index of the next viewer to evaluate */
+        private int nextViewer;
+
+        /** Time spent on this refresh so far in nanoseconds, recorded as a single latency sample once it finishes */
+        private long time;
+    }
+}
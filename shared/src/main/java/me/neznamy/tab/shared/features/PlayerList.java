@@ -18,6 +18,7 @@ import me.neznamy.tab.shared.util.Preconditions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -99,16 +100,55 @@ public class PlayerList extends TabFeature implements TabListFormatManager, Join
      */
     protected void updatePlayer(@NotNull me.neznamy.tab.api.TabPlayer p, boolean format) {
         TabPlayer player = (TabPlayer) p;
+        // If all viewers get the same component, it is only converted once per viewer cohort
+        boolean sharedFormat = format && isFormatShared(player);
+        IChatBaseComponent formatForAll = null;
+        boolean formatComputed = false;
+        IChatBaseComponent layoutName = null;
         for (TabPlayer viewer : TAB.getInstance().getOnlinePlayers()) {
             if (viewer.getVersion().getMinorVersion() < 8) continue;
             UUID tablistId = getTablistUUID(player, viewer);
-            viewer.getTabList().updateDisplayName(tablistId, format ? getTabFormat(player, viewer) :
-                    tablistId.getMostSignificantBits() == 0 ? new IChatBaseComponent(player.getName()) : null);
+            IChatBaseComponent displayName;
+            if (format) {
+                if (sharedFormat) {
+                    if (!formatComputed) {
+                        formatForAll = getTabFormat(player, viewer);
+                        formatComputed = true;
+                    }
+                    displayName = formatForAll;
+                } else {
+                    displayName = getTabFormat(player, viewer);
+                }
+            } else if (tablistId.getMostSignificantBits() == 0) {
+                if (layoutName == null) layoutName = new IChatBaseComponent(player.getName());
+                displayName = layoutName;
+            } else {
+                displayName = null;
+            }
+            viewer.getTabList().updateDisplayName(tablistId, displayName);
         }
         if (redis != null) redis.updateTabFormat(player, player.getProperty(TabConstants.Property.TABPREFIX).get() +
                 player.getProperty(TabConstants.Property.CUSTOMTABNAME).get() + player.getProperty(TabConstants.Property.TABSUFFIX).get());
     }
 
+    /**
+     * Returns {@code true} if {@link #getTabFormat(TabPlayer, TabPlayer)} of player returns
+     * the same format for all viewers, {@code false} if it may be different for each viewer.
+     * This is the case if format does not contain relational placeholders. Subclasses
+     * which format names per viewer must override this to return {@code false}.
+     *
+     * @param   p
+     *          Player to check format of
+     * @return  {@code true} if format is the same for all viewers, {@code false} if not
+     */
+    protected boolean isFormatShared(@NotNull TabPlayer p) {
+        Property prefix = p.getProperty(TabConstants.Property.TABPREFIX);
+        Property name = p.getProperty(TabConstants.Property.CUSTOMTABNAME);
+        Property suffix = p.getProperty(TabConstants.Property.TABSUFFIX);
+        return (prefix == null || !prefix.hasRelationalPlaceholders()) && (name == null || !name.hasRelationalPlaceholders()) &&
+                (suffix == null || !suffix.hasRelationalPlaceholders());
+    }
+
     /**
      * Returns TabList format of player for viewer
      *
@@ -198,6 +238,25 @@ public class PlayerList extends TabFeature implements TabListFormatManager, Join
         }
     }
 
+    @Override
+    public void refresh(@NotNull TabPlayer refreshed, boolean force, @NotNull Set<Property> dirty) {
+        if (force) {
+            refresh(refreshed, true);
+            return;
+        }
+        if (disableChecker.isDisabledPlayer(refreshed)) return;
+        boolean prefix = updateIfDirty(refreshed.getProperty(TabConstants.Property.TABPREFIX), dirty);
+        boolean name = updateIfDirty(refreshed.getProperty(TabConstants.Property.CUSTOMTABNAME), dirty);
+        boolean suffix = updateIfDirty(refreshed.getProperty(TabConstants.Property.TABSUFFIX), dirty);
+        if (prefix || name || suffix) {
+            updatePlayer(refreshed, true);
+        }
+    }
+
+    private boolean updateIfDirty(@Nullable Property property, @NotNull Set<Property> dirty) {
+        return property != null && dirty.contains(property) && property.update();
+    }
+
     @Override
     public void onJoin(@NotNull TabPlayer connectedPlayer) {
         updateProperties(connectedPlayer);
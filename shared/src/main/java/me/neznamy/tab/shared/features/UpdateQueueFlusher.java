@@ -0,0 +1,63 @@
+package me.neznamy.tab.shared.features;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import me.neznamy.tab.shared.TAB;
+import me.neznamy.tab.shared.TabConstants;
+import me.neznamy.tab.shared.features.types.JoinListener;
+import me.neznamy.tab.shared.features.types.Loadable;
+import me.neznamy.tab.shared.features.types.TabFeature;
+import me.neznamy.tab.shared.features.types.UnLoadable;
+import me.neznamy.tab.shared.platform.TabPlayer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Queues tablist entry, team, objective and score updates of all players
+ * and sends them once per configured interval. If a value is changed
+ * multiple times within the interval, only the last value is sent.
+ */
+@RequiredArgsConstructor
+public class UpdateQueueFlusher extends TabFeature implements JoinListener, Loadable, UnLoadable {
+
+    @Getter private final String featureName = "Update queue";
+
+    /** Interval in milliseconds between sending queued updates */
+    private final int flushInterval;
+
+    @Override
+    public void load() {
+        for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
+            onJoin(player);
+        }
+        TAB.getInstance().getCPUManager().startRepeatingMeasuredTask(flushInterval, featureName,
+                TabConstants.CpuUsageCategory.FLUSHING_UPDATE_QUEUE, this::flush);
+    }
+
+    @Override
+    public void unload() {
+        for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
+            player.getScoreboard().getUpdateQueue().setEnabled(false);
+            player.getTabList().flushBatch();
+        }
+    }
+
+    @Override
+    public void onJoin(@NotNull TabPlayer connectedPlayer) {
+        connectedPlayer.getScoreboard().getUpdateQueue().setEnabled(true);
+        connectedPlayer.getTabList().startBatch();
+    }
+
+    /**
+     * Sends queued updates of all online players. Packets of each player are written
+     * into the channel and flushed once, so they leave in as few network writes as possible.
+     */
+    private void flush() {
+        for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
+            player.runWithSingleFlush(() -> {
+                player.getTabList().flushBatch();
+                player.getTabList().startBatch();
+                player.getScoreboard().getUpdateQueue().flush();
+            });
+        }
+    }
+}
@@ -124,6 +124,12 @@ public class AlignedPlayerList extends PlayerList implements QuitListener {
         }
     }
 
+    @Override
+    protected boolean isFormatShared(@NotNull TabPlayer p) {
+        // Names are aligned based on each viewer's view
+        return false;
+    }
+
     @Override
     public IChatBaseComponent getTabFormat(@NotNull TabPlayer p, @NotNull TabPlayer viewer) {
         PlayerView view = playerViews.get(viewer);
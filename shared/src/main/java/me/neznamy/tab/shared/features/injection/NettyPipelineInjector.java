@@ -2,15 +2,22 @@ package me.neznamy.tab.shared.features.injection;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import me.neznamy.tab.shared.CpuCounter;
 import me.neznamy.tab.shared.TabConstants;
 import me.neznamy.tab.shared.TAB;
+import me.neznamy.tab.shared.features.types.PacketSendListener;
+import me.neznamy.tab.shared.features.types.TabFeature;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,6 +33,12 @@ public abstract class NettyPipelineInjector extends PipelineInjector {
 
     @Getter private final Function<TabPlayer, ChannelDuplexHandler> channelFunction = TabChannelDuplexHandler::new;
 
+    /** Counter for measuring time spent in anti-override of teams */
+    private final CpuCounter antiOverrideCounter = TAB.getInstance().getCPUManager().counter("NameTags", TabConstants.CpuUsageCategory.ANTI_OVERRIDE);
+
+    /** Dispatch table for currently registered features, replaced when they change */
+    @NotNull private volatile DispatchTable dispatchTable = new DispatchTable(new TabFeature[0]);
+
     protected abstract @Nullable Channel getChannel(@NotNull TabPlayer player);
 
     /**
@@ -45,6 +58,7 @@ public abstract class NettyPipelineInjector extends PipelineInjector {
         uninject(player);
         try {
             channel.pipeline().addBefore(injectPosition, TabConstants.PIPELINE_HANDLER_NAME, getChannelFunction().apply(player));
+            player.setChannel(channel);
         } catch (NoSuchElementException | IllegalArgumentException e) {
             //I don't really know how does this keep happening but whatever
         }
@@ -52,6 +66,7 @@ public abstract class NettyPipelineInjector extends PipelineInjector {
 
     @Override
     public void uninject(@NotNull TabPlayer player) {
+        player.setChannel(null);
         final Channel channel = getChannel(player);
         if (player.getVersion().getMinorVersion() < 8 || channel == null) return; //hello A248
         try {
@@ -66,13 +81,13 @@ public abstract class NettyPipelineInjector extends PipelineInjector {
 
     public abstract void onObjective(@NotNull TabPlayer player, @NotNull Object packet);
 
-    public abstract boolean isDisplayObjective(@NotNull Object packet);
+    public abstract boolean isDisplayObjective(@NotNull Class<?> packetClass);
 
-    public abstract boolean isObjective(@NotNull Object packet);
+    public abstract boolean isObjective(@NotNull Class<?> packetClass);
 
-    public abstract boolean isTeam(@NotNull Object packet);
+    public abstract boolean isTeam(@NotNull Class<?> packetClass);
 
-    public abstract boolean isPlayerInfo(@NotNull Object packet);
+    public abstract boolean isPlayerInfo(@NotNull Class<?> packetClass);
 
     public abstract void onPlayerInfo(@NotNull TabPlayer receiver, @NotNull Object packet);
 
@@ -84,6 +99,87 @@ public abstract class NettyPipelineInjector extends PipelineInjector {
      */
     public abstract void modifyPlayers(@NotNull Object teamPacket);
 
+    /**
+     * Returns handlers of packets of specified class. If not computed yet,
+     * they are computed and stored for future packets of the class.
+     *
+     * @param   packetClass
+     *          Class of the packet
+     * @return  Handlers of the packet class
+     */
+    private @NotNull PacketHandlers getHandlers(@NotNull Class<?> packetClass) {
+        TabFeature[] features = TAB.getInstance().getFeatureManager().getValues();
+        DispatchTable table = dispatchTable;
+        if (table.features != features) {
+            table = new DispatchTable(features);
+            dispatchTable = table;
+        }
+        PacketHandlers handlers = table.handlers.get(packetClass);
+        if (handlers == null) {
+            handlers = createHandlers(packetClass, table.features);
+            table.handlers.put(packetClass, handlers);
+        }
+        return handlers;
+    }
+
+    private @NotNull PacketHandlers createHandlers(@NotNull Class<?> packetClass, @NotNull TabFeature[] features) {
+        List<TabFeature> listeners = new ArrayList<>();
+        for (TabFeature feature : features) {
+            if (feature instanceof PacketSendListener && ((PacketSendListener) feature).isListening(packetClass)) {
+                listeners.add(feature);
+            }
+        }
+        boolean playerInfo = isPlayerInfo(packetClass);
+        boolean displayObjective = isDisplayObjective(packetClass);
+        boolean objective = isObjective(packetClass);
+        boolean team = isTeam(packetClass);
+        if (!playerInfo && !displayObjective && !objective && !team && listeners.isEmpty()) return PacketHandlers.PASS_THROUGH;
+        CpuCounter[] counters = new CpuCounter[listeners.size()];
+        for (int i=0; i<counters.length; i++) {
+            counters[i] = TAB.getInstance().getCPUManager().counter(listeners.get(i).getFeatureName(), TabConstants.CpuUsageCategory.RAW_PACKET_OUT);
+        }
+        return new PacketHandlers(playerInfo, displayObjective, objective, team, listeners.toArray(new TabFeature[0]), counters);
+    }
+
+    /**
+     * Features and handlers of each packet class computed for them. Handlers are only
+     * ever stored into the table of features they were computed from, so a thread still
+     * holding a table of old features cannot put stale handlers into the current one.
+     */
+    @RequiredArgsConstructor
+    private static class DispatchTable {
+
+        /** Features handlers were computed for */
+        @NotNull private final TabFeature[] features;
+
+        /**
+         * Handlers of each packet class, computed on first packet of the class.
+         * Packets which no feature is interested in are mapped to {@link PacketHandlers#PASS_THROUGH}.
+         */
+        @NotNull private final Map<Class<?>, PacketHandlers> handlers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Handlers packets of a class should be passed to
+     */
+    @RequiredArgsConstructor
+    private static class PacketHandlers {
+
+        /** Handlers of packets no feature is interested in */
+        private static final PacketHandlers PASS_THROUGH = new PacketHandlers(false, false, false, false, new TabFeature[0], new CpuCounter[0]);
+
+        private final boolean playerInfo;
+        private final boolean displayObjective;
+        private final boolean objective;
+        private final boolean team;
+
+        /** Features listening to packets of the class */
+        @NotNull private final TabFeature[] listeners;
+
+        /** Counters of raw packet processing of listeners, index matches {@link #listeners} */
+        @NotNull private final CpuCounter[] counters;
+    }
+
     @RequiredArgsConstructor
     public class TabChannelDuplexHandler extends ChannelDuplexHandler {
 
@@ -92,19 +188,26 @@ public abstract class NettyPipelineInjector extends PipelineInjector {
 
         @Override
         public void write(ChannelHandlerContext context, Object packet, ChannelPromise channelPromise) {
-            try {
-                if (isPlayerInfo(packet) && player.getVersion().getMinorVersion() >= 8)
-                                                onPlayerInfo(player, packet);
-                if (isDisplayObjective(packet)) onDisplayObjective(player, packet);
-                if (isObjective(packet))        onObjective(player, packet);
-                if (antiOverrideTeams && isTeam(packet)) {
-                    long time = System.nanoTime();
-                    modifyPlayers(packet);
-                    TAB.getInstance().getCPUManager().addTime("NameTags", TabConstants.CpuUsageCategory.ANTI_OVERRIDE, System.nanoTime()-time);
+            PacketHandlers handlers = getHandlers(packet.getClass());
+            if (handlers != PacketHandlers.PASS_THROUGH) {
+                try {
+                    if (handlers.playerInfo && player.getVersion().getMinorVersion() >= 8)
+                                                    onPlayerInfo(player, packet);
+                    if (handlers.displayObjective)  onDisplayObjective(player, packet);
+                    if (handlers.objective)         onObjective(player, packet);
+                    if (handlers.team && antiOverrideTeams) {
+                        long time = System.nanoTime();
+                        modifyPlayers(packet);
+                        antiOverrideCounter.add(System.nanoTime()-time);
+                    }
+                    for (int i=0; i<handlers.listeners.length; i++) {
+                        long time = System.nanoTime();
+                        ((PacketSendListener) handlers.listeners[i]).onPacketSend(player, packet);
+                        handlers.counters[i].add(System.nanoTime()-time);
+                    }
+                } catch (Throwable e) {
+                    TAB.getInstance().getErrorManager().printError("An error occurred when reading packets", e);
                 }
-                TAB.getInstance().getFeatureManager().onPacketSend(player, packet);
-            } catch (Throwable e) {
-                TAB.getInstance().getErrorManager().printError("An error occurred when reading packets", e);
             }
             try {
                 super.write(context, packet, channelPromise);
@@ -13,6 +13,7 @@ import me.neznamy.tab.api.tablist.layout.LayoutManager;
 import me.neznamy.tab.shared.chat.EnumChatFormat;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.TabConstants;
+import me.neznamy.tab.shared.platform.PlayerSlotMap;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.features.PlayerList;
 import me.neznamy.tab.shared.features.layout.skin.SkinManager;
@@ -39,14 +40,14 @@ public class LayoutManagerImpl extends TabFeature implements LayoutManager, Join
         }
     }};
     private final Map<String, LayoutPattern> layouts = loadLayouts();
-    private final WeakHashMap<TabPlayer, String> teamNames = new WeakHashMap<>();
+    private final PlayerSlotMap<String> teamNames = new PlayerSlotMap<>();
     private final Map<TabPlayer, String> sortedPlayers = Collections.synchronizedMap(new TreeMap<>(Comparator.comparing(teamNames::get)));
     private final Sorting sorting = TAB.getInstance().getFeatureManager().getFeature(TabConstants.Feature.SORTING);
     private PlayerList playerList;
     private final String featureName = "Layout";
     private final String refreshDisplayName = "Switching layouts";
-    private final WeakHashMap<TabPlayer, LayoutView> views = new WeakHashMap<>();
-    private final WeakHashMap<me.neznamy.tab.api.TabPlayer, LayoutPattern> forcedLayouts = new WeakHashMap<>();
+    private final PlayerSlotMap<LayoutView> views = new PlayerSlotMap<>();
+    private final PlayerSlotMap<LayoutPattern> forcedLayouts = new PlayerSlotMap<>();
 
     @Override
     public void load() {
@@ -86,7 +87,7 @@ public class LayoutManagerImpl extends TabFeature implements LayoutManager, Join
             view.send();
             views.put(p, view);
         }
-        views.values().forEach(LayoutView::tick);
+        views.forEachValue(LayoutView::tick);
 
         // Unformat original entries for players who can see a layout to avoid spaces due to unparsed placeholders and such
         if (highest == null) return;
@@ -100,7 +101,7 @@ public class LayoutManagerImpl extends TabFeature implements LayoutManager, Join
         sortedPlayers.remove(p);
         teamNames.remove(p);
         views.remove(p);
-        views.values().forEach(LayoutView::tick);
+        views.forEachValue(LayoutView::tick);
     }
 
     @Override
@@ -130,7 +131,7 @@ public class LayoutManagerImpl extends TabFeature implements LayoutManager, Join
 
     @Override
     public void onVanishStatusChange(@NotNull TabPlayer p) {
-        views.values().forEach(LayoutView::tick);
+        views.forEachValue(LayoutView::tick);
     }
 
     private @Nullable LayoutPattern getHighestLayout(@NotNull TabPlayer p) {
@@ -149,7 +150,7 @@ public class LayoutManagerImpl extends TabFeature implements LayoutManager, Join
         sortedPlayers.remove(p);
         teamNames.put(p, teamName);
         sortedPlayers.put(p, teamName);
-        views.values().forEach(LayoutView::tick);
+        views.forEachValue(LayoutView::tick);
     }
 
     @Override
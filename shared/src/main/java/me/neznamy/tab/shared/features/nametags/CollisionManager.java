@@ -2,10 +2,10 @@ package me.neznamy.tab.shared.features.nametags;
 
 import java.util.Collections;
 import java.util.Objects;
-import java.util.WeakHashMap;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import me.neznamy.tab.shared.platform.PlayerSlotMap;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.features.types.JoinListener;
 import me.neznamy.tab.shared.features.types.Loadable;
@@ -23,8 +23,8 @@ public class CollisionManager extends TabFeature implements JoinListener, Loadab
     @Getter private final String refreshDisplayName = "Updating collision";
     private final NameTag nameTags;
     private final boolean collisionRule;
-    private final WeakHashMap<TabPlayer, Boolean> collision = new WeakHashMap<>();
-    private final WeakHashMap<me.neznamy.tab.api.TabPlayer, Boolean> forcedCollision = new WeakHashMap<>();
+    private final PlayerSlotMap<Boolean> collision = new PlayerSlotMap<>();
+    private final PlayerSlotMap<Boolean> forcedCollision = new PlayerSlotMap<>();
 
     public boolean getCollision(TabPlayer p) {
         return forcedCollision.getOrDefault(p, collision.getOrDefault(p, collisionRule));
@@ -2,12 +2,14 @@ package me.neznamy.tab.shared.features.nametags;
 
 import lombok.Getter;
 import lombok.NonNull;
+import me.neznamy.tab.shared.Property;
 import me.neznamy.tab.shared.ProtocolVersion;
 import me.neznamy.tab.api.nametag.NameTagManager;
 import me.neznamy.tab.shared.placeholders.conditions.Condition;
 import me.neznamy.tab.shared.platform.Scoreboard.CollisionRule;
 import me.neznamy.tab.shared.platform.Scoreboard.NameVisibility;
 import me.neznamy.tab.shared.util.Preconditions;
+import me.neznamy.tab.shared.platform.PlayerSlotMap;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.TabConstants;
 import me.neznamy.tab.shared.TAB;
@@ -34,7 +36,7 @@ public class NameTag extends TabFeature implements NameTagManager, JoinListener,
 
     private final Set<me.neznamy.tab.api.TabPlayer> hiddenNameTag = Collections.newSetFromMap(new WeakHashMap<>());
     protected final Set<me.neznamy.tab.api.TabPlayer> teamHandlingPaused = Collections.newSetFromMap(new WeakHashMap<>());
-    protected final WeakHashMap<me.neznamy.tab.api.TabPlayer, List<me.neznamy.tab.api.TabPlayer>> hiddenNameTagFor = new WeakHashMap<>();
+    protected final PlayerSlotMap<List<me.neznamy.tab.api.TabPlayer>> hiddenNameTagFor = new PlayerSlotMap<>();
     protected final Set<me.neznamy.tab.api.TabPlayer> playersWithInvisibleNameTagView = Collections.newSetFromMap(new WeakHashMap<>());
     @Getter private final DisableChecker disableChecker;
     private RedisSupport redis;
@@ -96,6 +98,22 @@ public class NameTag extends TabFeature implements NameTagManager, JoinListener,
         if (refresh) updateTeamData(refreshed);
     }
 
+    @Override
+    public void refresh(@NotNull TabPlayer refreshed, boolean force, @NotNull Set<Property> dirty) {
+        if (force) {
+            refresh(refreshed, true);
+            return;
+        }
+        if (disableChecker.isDisabledPlayer(refreshed)) return;
+        boolean prefix = updateIfDirty(refreshed.getProperty(TabConstants.Property.TAGPREFIX), dirty);
+        boolean suffix = updateIfDirty(refreshed.getProperty(TabConstants.Property.TAGSUFFIX), dirty);
+        if (prefix || suffix) updateTeamData(refreshed);
+    }
+
+    private boolean updateIfDirty(@Nullable Property property, @NotNull Set<Property> dirty) {
+        return property != null && dirty.contains(property) && property.update();
+    }
+
     @Override
     public void onJoin(@NotNull TabPlayer connectedPlayer) {
         sorting.constructTeamNames(connectedPlayer);
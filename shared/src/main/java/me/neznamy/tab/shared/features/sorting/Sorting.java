@@ -12,6 +12,7 @@ import me.neznamy.tab.shared.features.types.Loadable;
 import me.neznamy.tab.shared.features.types.Refreshable;
 import me.neznamy.tab.shared.features.types.TabFeature;
 import me.neznamy.tab.shared.platform.Scoreboard;
+import me.neznamy.tab.shared.platform.PlayerSlotMap;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.TabConstants;
@@ -51,10 +52,10 @@ public class Sorting extends TabFeature implements SortingManager, JoinListener,
     private final SortingType[] usedSortingTypes;
 
     //team names and notes
-    private final WeakHashMap<TabPlayer, String> shortTeamNames = new WeakHashMap<>();
-    private final WeakHashMap<TabPlayer, String> fullTeamNames = new WeakHashMap<>();
-    private final WeakHashMap<TabPlayer, String> teamNameNotes = new WeakHashMap<>();
-    private final WeakHashMap<me.neznamy.tab.api.TabPlayer, String> forcedTeamName = new WeakHashMap<>();
+    private final PlayerSlotMap<String> shortTeamNames = new PlayerSlotMap<>();
+    private final PlayerSlotMap<String> fullTeamNames = new PlayerSlotMap<>();
+    private final PlayerSlotMap<String> teamNameNotes = new PlayerSlotMap<>();
+    private final PlayerSlotMap<String> forcedTeamName = new PlayerSlotMap<>();
     
     /**
      * Constructs new instance and loads config options
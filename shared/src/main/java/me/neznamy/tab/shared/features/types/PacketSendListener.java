@@ -17,4 +17,17 @@ public interface PacketSendListener {
      *          The packet
      */
     void onPacketSend(@NotNull TabPlayer receiver, @NotNull Object packet);
+
+    /**
+     * Returns {@code true} if this listener wants to receive packets of specified class,
+     * {@code false} if not. Called once per packet class, packets of classes this returns
+     * {@code false} for are never passed to {@link #onPacketSend(TabPlayer, Object)}.
+     *
+     * @param   packetClass
+     *          Class of the packet
+     * @return  {@code true} if packets of this class should be received, {@code false} if not
+     */
+    default boolean isListening(@NotNull Class<?> packetClass) {
+        return true;
+    }
 }
@@ -1,10 +1,13 @@
 package me.neznamy.tab.shared.features.types;
 
+import me.neznamy.tab.shared.CpuCounter;
+import me.neznamy.tab.shared.Property;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * Interface for features periodically refreshing visuals
@@ -21,6 +24,22 @@ public interface Refreshable {
      */
     void refresh(@NotNull TabPlayer refreshed, boolean force);
 
+    /**
+     * Called when a placeholder used by this feature changes value. Receives properties
+     * of the player which were marked as dirty, allowing features to update only those
+     * instead of all of their properties. Calls {@link #refresh(TabPlayer, boolean)} by default.
+     *
+     * @param   refreshed
+     *          Player which a placeholder changed value for
+     * @param   force
+     *          Whether refresh should be forced
+     * @param   dirty
+     *          Properties of the player which need to be updated
+     */
+    default void refresh(@NotNull TabPlayer refreshed, boolean force, @NotNull Set<Property> dirty) {
+        refresh(refreshed, force);
+    }
+
     /**
      * Returns display name of {@link #refresh(TabPlayer, boolean)}
      * called for this feature in /tab cpu
@@ -29,6 +48,14 @@ public interface Refreshable {
      */
     @NotNull String getRefreshDisplayName();
 
+    /**
+     * Returns counter of CPU usage of {@link #refresh(TabPlayer, boolean)}.
+     * Implemented by {@link TabFeature}, which obtains the counter only once.
+     *
+     * @return  counter of refreshing this feature
+     */
+    @NotNull CpuCounter getRefreshCounter();
+
     /**
      * Registers this feature as one using specified placeholders
      *
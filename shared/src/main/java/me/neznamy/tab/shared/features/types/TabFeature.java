@@ -1,16 +1,39 @@
 package me.neznamy.tab.shared.features.types;
 
+import me.neznamy.tab.shared.CpuCounter;
+import me.neznamy.tab.shared.TAB;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Abstract class representing a core feature of the plugin.
  */
 public abstract class TabFeature {
 
+    /** Counter of CPU usage of refreshing this feature, obtained on first refresh */
+    @Nullable private volatile CpuCounter refreshCounter;
+
     /**
      * Returns name of this feature displayed in /tab cpu
      *
      * @return  name of this feature display in /tab cpu
      */
     public abstract @NotNull String getFeatureName();
-}
\ No newline at end of file
+
+    /**
+     * Returns counter of CPU usage of {@link Refreshable#refresh(me.neznamy.tab.shared.platform.TabPlayer, boolean)}
+     * of this feature. The counter is obtained once and reused for all refreshes.
+     *
+     * @return  counter of refreshing this feature
+     * @throws  ClassCastException
+     *          if this feature is not {@link Refreshable}
+     */
+    public @NotNull CpuCounter getRefreshCounter() {
+        CpuCounter counter = refreshCounter;
+        if (counter == null) {
+            counter = TAB.getInstance().getCPUManager().counter(getFeatureName(), ((Refreshable) this).getRefreshDisplayName());
+            refreshCounter = counter;
+        }
+        return counter;
+    }
+}
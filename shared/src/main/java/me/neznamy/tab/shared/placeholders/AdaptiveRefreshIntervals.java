@@ -0,0 +1,144 @@
+package me.neznamy.tab.shared.placeholders;
+
+import lombok.Getter;
+import me.neznamy.tab.api.placeholder.Placeholder;
+import me.neznamy.tab.shared.TabConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adjusts refresh intervals of placeholders based on how often they change value
+ * and how much CPU time they take. Expensive placeholders which rarely change value
+ * get their interval lengthened, cheap placeholders which change value often get
+ * it shortened. Effective intervals always stay within configured bounds.
+ * <p>
+ * Statistics are collected from TAB's processing thread only.
+ */
+public class AdaptiveRefreshIntervals {
+
+    /** Change ratio under which a placeholder is considered rarely changing */
+    private final double RARE_CHANGE_RATIO = 0.1;
+
+    /** Change ratio over which a placeholder is considered volatile */
+    private final double VOLATILE_CHANGE_RATIO = 0.5;
+
+    /** CPU usage in % over which a placeholder is considered expensive */
+    private final float EXPENSIVE_USAGE = 1;
+
+    /** CPU usage in % under which a placeholder is considered cheap */
+    private final float CHEAP_USAGE = 0.1f;
+
+    /** Whether adaptive refresh intervals are enabled or not */
+    @Getter private final boolean enabled;
+
+    /** Minimum refresh interval in milliseconds */
+    private final int minInterval;
+
+    /** Maximum refresh interval in milliseconds */
+    private final int maxInterval;
+
+    /** Effective refresh intervals of placeholders which were adjusted */
+    private final Map<String, Integer> effectiveIntervals = new ConcurrentHashMap<>();
+
+    /** Amount of evaluations and value changes of placeholders since last adjustment */
+    private Map<String, long[]> statistics = new HashMap<>();
+
+    /**
+     * Constructs new instance with given parameters
+     *
+     * @param   enabled
+     *          whether adaptive refresh intervals are enabled or not
+     * @param   minInterval
+     *          minimum refresh interval in milliseconds
+     * @param   maxInterval
+     *          maximum refresh interval in milliseconds
+     */
+    public AdaptiveRefreshIntervals(boolean enabled, int minInterval, int maxInterval) {
+        this.enabled = enabled;
+        this.minInterval = roundInterval(Math.max(TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL, minInterval));
+        this.maxInterval = roundInterval(Math.max(this.minInterval, maxInterval));
+    }
+
+    /**
+     * Records result of refreshing a placeholder
+     *
+     * @param   identifier
+     *          placeholder identifier
+     * @param   evaluations
+     *          amount of times the placeholder was evaluated
+     * @param   changes
+     *          amount of evaluations which changed value
+     */
+    public void recordRefresh(@NotNull String identifier, long evaluations, long changes) {
+        if (!enabled) return;
+        long[] stats = statistics.computeIfAbsent(identifier, i -> new long[2]);
+        stats[0] += evaluations;
+        stats[1] += changes;
+    }
+
+    /**
+     * Returns refresh interval the placeholder should currently use
+     *
+     * @param   placeholder
+     *          placeholder to get refresh interval of
+     * @return  effective refresh interval of the placeholder
+     */
+    public int getEffectiveRefresh(@NotNull Placeholder placeholder) {
+        return effectiveIntervals.getOrDefault(placeholder.getIdentifier(), placeholder.getRefresh());
+    }
+
+    /**
+     * Adjusts refresh intervals of used placeholders based on collected statistics and their
+     * CPU usage and resets the statistics. Animations and conditions are never adjusted, because
+     * animation frames are calculated from time and conditions inherit intervals of nested placeholders.
+     *
+     * @param   placeholders
+     *          currently used placeholders
+     * @param   usage
+     *          CPU usage of placeholders in %
+     * @return  {@code true} if any interval changed, {@code false} if not
+     */
+    public boolean adjust(@NotNull Placeholder[] placeholders, @NotNull Map<String, Float> usage) {
+        if (!enabled) return false;
+        Map<String, long[]> statistics = this.statistics;
+        this.statistics = new HashMap<>();
+        boolean changed = false;
+        for (Placeholder placeholder : placeholders) {
+            String identifier = placeholder.getIdentifier();
+            if (placeholder.getRefresh() == -1 || identifier.startsWith("%animation:") || identifier.startsWith("%condition:")) continue;
+            long[] stats = statistics.get(identifier);
+            if (stats == null || stats[0] == 0) continue;
+            double changeRatio = (double) stats[1] / stats[0];
+            float cpu = usage.getOrDefault(identifier, 0f);
+            int current = getEffectiveRefresh(placeholder);
+            int interval;
+            if (changeRatio < RARE_CHANGE_RATIO && cpu >= EXPENSIVE_USAGE) {
+                interval = Math.max(current, Math.min(maxInterval, roundInterval(current * 2)));
+            } else if (changeRatio > VOLATILE_CHANGE_RATIO && cpu < CHEAP_USAGE) {
+                interval = Math.min(current, Math.max(minInterval, roundInterval(current / 2)));
+            } else {
+                continue;
+            }
+            if (interval != current) {
+                effectiveIntervals.put(identifier, interval);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Rounds refresh interval to nearest multiple of {@link TabConstants.Placeholder#MINIMUM_REFRESH_INTERVAL}
+     *
+     * @param   interval
+     *          interval to round
+     * @return  rounded interval
+     */
+    private int roundInterval(int interval) {
+        int step = TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL;
+        return Math.max(step, Math.round((float) interval / step) * step);
+    }
+}
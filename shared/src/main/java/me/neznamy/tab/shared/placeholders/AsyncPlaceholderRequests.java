@@ -0,0 +1,139 @@
+package me.neznamy.tab.shared.placeholders;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import me.neznamy.tab.shared.TAB;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Tracker of pending requests of an asynchronous placeholder. Only one request
+ * per key can be pending at a time and total amount of pending requests is capped.
+ * Each pending request stores its deadline and requests past their deadline are
+ * cancelled by {@link #expire()}, which is called periodically, their result is ignored.
+ * Results are passed to the callback on TAB's processing thread.
+ *
+ * @param   <K>
+ *          request key type, player for player placeholders
+ */
+@RequiredArgsConstructor
+public class AsyncPlaceholderRequests<K> {
+
+    /** Identifier of placeholder the requests belong to, used in error messages */
+    @NonNull private final String identifier;
+
+    /** Time in milliseconds after which pending request is cancelled, {@code 0} or less for no timeout */
+    private final int timeout;
+
+    /** Maximum amount of pending requests at a time */
+    private final int maxPendingRequests;
+
+    /** Currently pending requests */
+    private final Map<K, PendingRequest> pending = new ConcurrentHashMap<>();
+
+    /** Amount of reserved pending request slots, never exceeds {@link #maxPendingRequests} */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * Starts a new request if there is no pending request for the key and pending request
+     * limit was not reached. Once the request completes with a non-null value, the value
+     * is passed to the callback on TAB's processing thread.
+     *
+     * @param   key
+     *          key of the request
+     * @param   request
+     *          function starting the request
+     * @param   callback
+     *          callback receiving the result
+     */
+    public void request(@NonNull K key, @NonNull Supplier<CompletableFuture<?>> request, @NonNull Consumer<Object> callback) {
+        if (pending.containsKey(key) || !reserve()) return;
+        PendingRequest pendingRequest = new PendingRequest(timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0);
+        if (pending.putIfAbsent(key, pendingRequest) != null) {
+            reserved.decrementAndGet();
+            return;
+        }
+        CompletableFuture<?> future;
+        try {
+            future = request.get();
+        } catch (Throwable t) {
+            release(key, pendingRequest);
+            TAB.getInstance().getErrorManager().placeholderError("Async placeholder " + identifier + " generated an error", t);
+            return;
+        }
+        if (future == null) {
+            release(key, pendingRequest);
+            return;
+        }
+        pendingRequest.future = future;
+        future.whenComplete((value, error) -> {
+            if (!release(key, pendingRequest)) return; // Timed out
+            if (error != null) {
+                TAB.getInstance().getErrorManager().placeholderError("Async placeholder " + identifier + " generated an error", error);
+                return;
+            }
+            if (value != null) TAB.getInstance().getCPUManager().runTask(() -> callback.accept(value));
+        });
+    }
+
+    /**
+     * Cancels all pending requests which passed their deadline
+     */
+    public void expire() {
+        if (timeout <= 0 || pending.isEmpty()) return;
+        long now = System.nanoTime();
+        pending.forEach((key, request) -> {
+            CompletableFuture<?> future = request.future;
+            if (future == null || now - request.deadline < 0) return; // Still starting or not expired yet
+            if (release(key, request)) future.cancel(false);
+        });
+    }
+
+    /**
+     * Reserves a pending request slot if limit was not reached yet
+     *
+     * @return  {@code true} if slot was reserved, {@code false} if limit was reached
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = reserved.get();
+            if (current >= maxPendingRequests) return false;
+            if (reserved.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Removes pending request and releases its slot if it is still pending
+     *
+     * @param   key
+     *          key of the request
+     * @param   request
+     *          request to remove
+     * @return  {@code true} if request was removed, {@code false} if it was already removed before
+     */
+    private boolean release(@NonNull K key, @NonNull PendingRequest request) {
+        if (!pending.remove(key, request)) return false;
+        reserved.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Request in progress and its deadline
+     */
+    @RequiredArgsConstructor
+    private static class PendingRequest {
+
+        /** Value of {@link System#nanoTime()} after which the request is cancelled */
+        private final long deadline;
+
+        /** Future of the request, {@code null} while the request is being started */
+        @Nullable private volatile CompletableFuture<?> future;
+    }
+}
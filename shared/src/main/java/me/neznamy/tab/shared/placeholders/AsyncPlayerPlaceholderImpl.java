@@ -0,0 +1,63 @@
+package me.neznamy.tab.shared.placeholders;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.NonNull;
+import me.neznamy.tab.shared.TAB;
+import me.neznamy.tab.shared.TabConstants;
+import me.neznamy.tab.shared.platform.TabPlayer;
+
+/**
+ * Player placeholder with output computed asynchronously. Requesting the placeholder
+ * only starts a new request and last known value keeps being displayed until
+ * it completes, after which the new value is applied using {@link #updateValue(me.neznamy.tab.api.TabPlayer, Object)}.
+ */
+public class AsyncPlayerPlaceholderImpl extends PlayerPlaceholderImpl {
+
+    /** Function starting a new request */
+    @NonNull private final Function<me.neznamy.tab.api.TabPlayer, CompletableFuture<?>> function;
+
+    /** Pending requests of this placeholder */
+    @Getter private final AsyncPlaceholderRequests<TabPlayer> requests;
+
+    /**
+     * Constructs new instance with given parameters
+     *
+     * @param   identifier
+     *          placeholder's identifier, must start and end with %
+     * @param   refresh
+     *          refresh interval in milliseconds, must be divisible by {@link TabConstants.Placeholder#MINIMUM_REFRESH_INTERVAL}
+     *          or equal to -1 to disable automatic refreshing
+     * @param   timeout
+     *          time in milliseconds after which pending request is cancelled, {@code 0} or less for no timeout
+     * @param   maxPendingRequests
+     *          maximum amount of pending requests at a time
+     * @param   function
+     *          function starting a new request
+     */
+    public AsyncPlayerPlaceholderImpl(@NonNull String identifier, int refresh, int timeout, int maxPendingRequests,
+                                      @NonNull Function<me.neznamy.tab.api.TabPlayer, CompletableFuture<?>> function) {
+        super(identifier, refresh, p -> null);
+        this.function = function;
+        requests = new AsyncPlaceholderRequests<>(identifier, timeout, maxPendingRequests);
+    }
+
+    /**
+     * Starts a new request if there is no pending request for the player
+     * and returns {@code null}, since the value is not known yet.
+     *
+     * @param   p
+     *          player to request value for
+     * @return  {@code null}
+     */
+    @Override
+    public Object request(@NonNull TabPlayer p) {
+        requests.request(p, () -> function.apply(p), value -> {
+            if (TAB.getInstance().getPlayer(p.getUniqueId()) != p) return; // Player quit
+            updateValue(p, value);
+        });
+        return null;
+    }
+}
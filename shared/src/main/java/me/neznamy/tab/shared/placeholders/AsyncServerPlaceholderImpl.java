@@ -0,0 +1,60 @@
+package me.neznamy.tab.shared.placeholders;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import lombok.NonNull;
+import me.neznamy.tab.shared.TabConstants;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Server placeholder with output computed asynchronously. Refreshing the placeholder
+ * only starts a new request and last known value keeps being displayed until
+ * it completes, after which the new value is applied using {@link #updateValue(Object)}.
+ */
+public class AsyncServerPlaceholderImpl extends ServerPlaceholderImpl {
+
+    /** Function starting a new request */
+    @NonNull private final Supplier<CompletableFuture<?>> supplier;
+
+    /** Pending requests of this placeholder, there is only one key */
+    @Getter private final AsyncPlaceholderRequests<Boolean> requests;
+
+    /**
+     * Constructs new instance with given parameters and starts the first request
+     *
+     * @param   identifier
+     *          placeholder's identifier, must start and end with %
+     * @param   refresh
+     *          refresh interval in milliseconds, must be divisible by {@link TabConstants.Placeholder#MINIMUM_REFRESH_INTERVAL}
+     *          or equal to -1 to disable automatic refreshing
+     * @param   timeout
+     *          time in milliseconds after which pending request is cancelled, {@code 0} or less for no timeout
+     * @param   supplier
+     *          function starting a new request
+     */
+    public AsyncServerPlaceholderImpl(@NonNull String identifier, int refresh, int timeout, @NonNull Supplier<CompletableFuture<?>> supplier) {
+        super(identifier, refresh, () -> null);
+        this.supplier = supplier;
+        requests = new AsyncPlaceholderRequests<>(identifier, timeout, 1);
+        update0();
+    }
+
+    /**
+     * Starts a new request if there is no pending request. Value is applied once it completes.
+     *
+     * @return  {@code false}, since value is never changed immediately
+     */
+    @Override
+    public boolean update0() {
+        if (requests == null) return false; // Called from super constructor
+        requests.request(Boolean.TRUE, supplier, this::updateValue);
+        return false;
+    }
+
+    @Override
+    public @Nullable Object request() {
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+package me.neznamy.tab.shared.placeholders;
+
+import lombok.Getter;
+import me.neznamy.tab.api.placeholder.Placeholder;
+import me.neznamy.tab.shared.TAB;
+import me.neznamy.tab.shared.TabConstants;
+import me.neznamy.tab.shared.features.scoreboard.lines.ScoreboardLine;
+import me.neznamy.tab.shared.features.types.Refreshable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds cosmetic placeholder refreshing when CPU usage of the plugin exceeds
+ * configured budget. Cosmetic placeholders are animations, relational placeholders,
+ * latency and placeholders only used in scoreboard lines. When average usage over
+ * the rolling window goes above the budget, refresh intervals of cosmetic placeholders
+ * are doubled by skipping their refresh cycles, up to configured maximum. Once usage
+ * drops under half of the budget, intervals are halved back.
+ * <p>
+ * Critical work, such as processing joins, quits, server switches and registering
+ * teams, is event driven and never delayed.
+ */
+public class LoadGovernor {
+
+    /** Amount of usage samples in the rolling window */
+    private final int WINDOW_SIZE = 3;
+
+    /** Share of the budget usage must drop under before intervals are restored */
+    private final double RESTORE_RATIO = 0.5;
+
+    /** Amount of cosmetic placeholder refreshes which were skipped */
+    private final LongAdder skippedRefreshes = new LongAdder();
+
+    /** Whether load shedding is enabled or not */
+    @Getter private final boolean enabled;
+
+    /** CPU usage budget in % */
+    private final double budget;
+
+    /** Maximum multiplier of cosmetic refresh intervals */
+    private final int maxStretch;
+
+    /** Last CPU usage samples in % */
+    private final double[] samples = new double[WINDOW_SIZE];
+
+    /** Amount of samples taken since last change of stretch */
+    private int sampleCount;
+
+    /** Current multiplier of cosmetic refresh intervals, {@code 1} if nothing is being shed */
+    @Getter private volatile int stretch = 1;
+
+    /**
+     * Constructs new instance with given parameters
+     *
+     * @param   budget
+     *          CPU usage budget in %, {@code 0} or less to disable load shedding
+     * @param   maxStretch
+     *          maximum multiplier of cosmetic refresh intervals
+     */
+    public LoadGovernor(double budget, int maxStretch) {
+        this.enabled = budget > 0;
+        this.budget = budget;
+        this.maxStretch = Math.max(1, maxStretch);
+    }
+
+    /**
+     * Records CPU usage of the last measuring period and stretches or restores
+     * cosmetic refresh intervals based on average usage in the rolling window.
+     * After intervals change, the window starts over, so the next decision
+     * is only based on usage with the new intervals.
+     *
+     * @param   usage
+     *          CPU usage of the plugin in %
+     */
+    public void update(double usage) {
+        if (!enabled) return;
+        samples[sampleCount % WINDOW_SIZE] = usage;
+        sampleCount++;
+        double sum = 0;
+        int count = Math.min(sampleCount, WINDOW_SIZE);
+        for (int i=0; i<count; i++) sum += samples[i];
+        double average = sum / count;
+        if (average > budget && stretch < maxStretch) {
+            stretch = Math.min(maxStretch, stretch * 2);
+            sampleCount = 0;
+            TAB.getInstance().sendConsoleMessage("&c[WARN] CPU usage of the plugin is " + (int) average + "%, which is over the budget of "
+                    + (int) budget + "%. Refreshing of cosmetic placeholders was slowed down " + stretch + "x.", true);
+        } else if (average < budget * RESTORE_RATIO && stretch > 1) {
+            stretch /= 2;
+            sampleCount = 0;
+            TAB.getInstance().sendConsoleMessage("&aCPU usage of the plugin dropped to " + (int) average + "%, refreshing of cosmetic placeholders "
+                    + (stretch == 1 ? "was restored." : "is now slowed down " + stretch + "x."), true);
+        }
+    }
+
+    /**
+     * Returns {@code true} if refresh cycle of the placeholder should be skipped
+     * to reduce load, {@code false} if it should be refreshed.
+     *
+     * @param   placeholder
+     *          placeholder due for refresh
+     * @param   refresh
+     *          current refresh interval of the placeholder in milliseconds
+     * @param   tick
+     *          current refresh tick
+     * @param   usage
+     *          features using the placeholder
+     * @return  {@code true} if refresh should be skipped, {@code false} if not
+     */
+    public boolean shouldSkip(@NotNull Placeholder placeholder, int refresh, int tick, @NotNull Collection<Refreshable> usage) {
+        int stretch = this.stretch;
+        if (stretch == 1 || !isCosmetic(placeholder, usage)) return false;
+        int cycle = tick / Math.max(1, refresh / TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL);
+        if (cycle % stretch == 0) return false;
+        skippedRefreshes.increment();
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if placeholder only affects cosmetic parts of the plugin,
+     * {@code false} if not.
+     *
+     * @param   placeholder
+     *          placeholder to check
+     * @param   usage
+     *          features using the placeholder
+     * @return  {@code true} if placeholder is cosmetic, {@code false} if not
+     */
+    private boolean isCosmetic(@NotNull Placeholder placeholder, @NotNull Collection<Refreshable> usage) {
+        String identifier = placeholder.getIdentifier();
+        if (identifier.startsWith("%animation:") || identifier.equals(TabConstants.Placeholder.PING) ||
+                placeholder instanceof RelationalPlaceholderImpl) return true;
+        if (usage.isEmpty()) return false;
+        for (Refreshable refreshable : usage) {
+            if (!(refreshable instanceof ScoreboardLine)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns amount of cosmetic placeholder refreshes which were skipped
+     *
+     * @return  amount of skipped refreshes
+     */
+    public long getSkippedRefreshes() {
+        return skippedRefreshes.sum();
+    }
+}
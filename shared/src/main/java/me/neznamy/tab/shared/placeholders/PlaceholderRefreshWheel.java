@@ -0,0 +1,130 @@
+package me.neznamy.tab.shared.placeholders;
+
+import me.neznamy.tab.api.placeholder.Placeholder;
+import me.neznamy.tab.shared.TabConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Timing wheel deciding which placeholders should refresh in a tick. Placeholders
+ * are grouped by their refresh interval and within each group by their phase, which is
+ * the tick of the interval they are due in. Only occupied phases are stored, so memory
+ * and rebuild cost depend on amount of placeholders, not on length of refresh intervals.
+ * Every tick, each group looks up the phase matching current tick, so the cost depends on
+ * amount of placeholders which are actually due and amount of different refresh intervals,
+ * not on amount of used placeholders.
+ * <p>
+ * Optionally, placeholders can be spread across phases of their interval using a phase
+ * offset, so that many placeholders with the same refresh interval don't all refresh
+ * in the same tick.
+ */
+public class PlaceholderRefreshWheel {
+
+    /** Whether placeholders should be spread across ticks of their refresh interval */
+    private final boolean spread;
+
+    /** Groups of placeholders with the same refresh interval */
+    private volatile Group[] groups = new Group[0];
+
+    /**
+     * Constructs new instance with given parameter
+     *
+     * @param   spread
+     *          {@code true} if placeholders should get phase offsets, {@code false} if not
+     */
+    public PlaceholderRefreshWheel(boolean spread) {
+        this.spread = spread;
+    }
+
+    /**
+     * Rebuilds the wheel from given placeholders. Placeholders with refresh interval
+     * of {@code -1} are not added, since they never refresh automatically.
+     *
+     * @param   placeholders
+     *          placeholders to schedule
+     * @param   refreshFunction
+     *          function returning refresh interval placeholder should be scheduled with
+     */
+    public void rebuild(@NotNull Placeholder[] placeholders, @NotNull ToIntFunction<Placeholder> refreshFunction) {
+        Map<Integer, SortedMap<Integer, List<Placeholder>>> phasesByInterval = new HashMap<>();
+        for (Placeholder placeholder : placeholders) {
+            int refresh = refreshFunction.applyAsInt(placeholder);
+            if (refresh == -1) continue;
+            int ticks = refresh / TabConstants.Placeholder.MINIMUM_REFRESH_INTERVAL;
+            phasesByInterval.computeIfAbsent(ticks, t -> new TreeMap<>())
+                    .computeIfAbsent(getPhase(placeholder, ticks), phase -> new ArrayList<>()).add(placeholder);
+        }
+        List<Group> groups = new ArrayList<>(phasesByInterval.size());
+        phasesByInterval.forEach((ticks, phases) -> groups.add(new Group(ticks, phases)));
+        this.groups = groups.toArray(new Group[0]);
+    }
+
+    /**
+     * Returns phase offset of placeholder in ticks. Animations are never offset, because
+     * their current frame is calculated from loop time and offsetting them would make
+     * frames change late.
+     *
+     * @param   placeholder
+     *          placeholder to get phase offset of
+     * @param   ticks
+     *          refresh interval of the placeholder in ticks
+     * @return  phase offset of the placeholder
+     */
+    private int getPhase(@NotNull Placeholder placeholder, int ticks) {
+        if (!spread || placeholder.getIdentifier().startsWith("%animation:")) return 0;
+        return Math.floorMod(placeholder.getIdentifier().hashCode(), ticks);
+    }
+
+    /**
+     * Adds all placeholders which should refresh in specified tick into provided list.
+     *
+     * @param   tick
+     *          current tick
+     * @param   due
+     *          list to add placeholders to
+     */
+    public void collectDuePlaceholders(long tick, @NotNull List<Placeholder> due) {
+        for (Group group : groups) {
+            int index = Arrays.binarySearch(group.phases, (int) (tick % group.ticks));
+            if (index >= 0) Collections.addAll(due, group.placeholders[index]);
+        }
+    }
+
+    /**
+     * Placeholders with the same refresh interval, stored by their phase.
+     * Placeholders are due in ticks where {@code tick % ticks == phase}.
+     */
+    private static class Group {
+
+        /** Refresh interval of the group in ticks */
+        private final int ticks;
+
+        /** Occupied phases in ascending order */
+        private final int[] phases;
+
+        /** Placeholders of each phase, index matches {@link #phases} */
+        private final Placeholder[][] placeholders;
+
+        /**
+         * Constructs new instance from placeholders sorted by their phase
+         *
+         * @param   ticks
+         *          refresh interval of the group in ticks
+         * @param   phases
+         *          placeholders by phase in ascending order
+         */
+        private Group(int ticks, @NotNull SortedMap<Integer, List<Placeholder>> phases) {
+            this.ticks = ticks;
+            this.phases = new int[phases.size()];
+            this.placeholders = new Placeholder[phases.size()][];
+            int i = 0;
+            for (Map.Entry<Integer, List<Placeholder>> entry : phases.entrySet()) {
+                this.phases[i] = entry.getKey();
+                this.placeholders[i] = entry.getValue().toArray(new Placeholder[0]);
+                i++;
+            }
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package me.neznamy.tab.shared.placeholders;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
+import lombok.Getter;
 import lombok.NonNull;
 import me.neznamy.tab.shared.features.types.Refreshable;
+import me.neznamy.tab.shared.platform.PlayerSlotMap;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.api.placeholder.PlayerPlaceholder;
 import me.neznamy.tab.shared.TAB;
@@ -23,11 +26,30 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
      */
     private final String ERROR_VALUE = "ERROR";
 
+    /**
+     * Locks serializing requests of placeholders which are not thread-safe by their expansion,
+     * which is the part of identifier before first underscore. Placeholders of the same
+     * expansion often share state, so they are never requested concurrently from worker shards.
+     */
+    private static final Map<String, Object> REQUEST_LOCKS = new ConcurrentHashMap<>();
+
     /** Placeholder function returning fresh output on request */
     @NonNull private final Function<me.neznamy.tab.api.TabPlayer, Object> function;
 
-    /** Last known values for each online player after applying replacements and nested placeholders */
-    private final WeakHashMap<TabPlayer, String> lastValues = new WeakHashMap<>();
+    /**
+     * Last known values for each online player after applying replacements and nested placeholders.
+     * Worker shards only request raw outputs, which are then processed on the main thread.
+     */
+    private final PlayerSlotMap<String> lastValues = new PlayerSlotMap<>();
+
+    /**
+     * Whether the function is safe to call concurrently from multiple threads,
+     * allowing it to be evaluated for all players in parallel.
+     */
+    @Getter private final boolean threadSafe;
+
+    /** Lock for requesting the placeholder if it is not thread-safe, {@code null} if it is */
+    @Nullable private final Object requestLock;
 
     /**
      * Constructs new instance with given parameters
@@ -41,9 +63,30 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
      *          refresh function which returns new up-to-date output on request
      */
     public PlayerPlaceholderImpl(@NonNull String identifier, int refresh, @NonNull Function<me.neznamy.tab.api.TabPlayer, Object> function) {
+        this(identifier, refresh, false, function);
+    }
+
+    /**
+     * Constructs new instance with given parameters
+     *
+     * @param   identifier
+     *          placeholder's identifier, must start and end with %
+     * @param   refresh
+     *          refresh interval in milliseconds, must be divisible by {@link TabConstants.Placeholder#MINIMUM_REFRESH_INTERVAL}
+     *          or equal to -1 to disable automatic refreshing
+     * @param   threadSafe
+     *          whether function is safe to call concurrently from multiple threads
+     * @param   function
+     *          refresh function which returns new up-to-date output on request
+     */
+    public PlayerPlaceholderImpl(@NonNull String identifier, int refresh, boolean threadSafe, @NonNull Function<me.neznamy.tab.api.TabPlayer, Object> function) {
         super(identifier, refresh);
         if (identifier.startsWith("%rel_")) throw new IllegalArgumentException("\"rel_\" is reserved for relational placeholder identifiers");
+        this.threadSafe = threadSafe;
         this.function = function;
+        int underscore = identifier.indexOf('_');
+        requestLock = threadSafe ? null : REQUEST_LOCKS.computeIfAbsent(
+                underscore == -1 ? identifier : identifier.substring(0, underscore), e -> new Object());
     }
 
     /**
@@ -54,7 +97,20 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
      * @return  {@code true} if value changed since last time, {@code false} if not
      */
     public boolean update(@NonNull TabPlayer p) {
-        Object output = request(p);
+        return update(p, request(p));
+    }
+
+    /**
+     * Processes output previously returned by {@link #request(TabPlayer)}, saves it to map
+     * and returns true if value changed, false if not
+     *
+     * @param   p
+     *          player to update placeholder for
+     * @param   output
+     *          raw output of the placeholder
+     * @return  {@code true} if value changed since last time, {@code false} if not
+     */
+    public boolean update(@NonNull TabPlayer p, @Nullable Object output) {
         if (output == null) return false; //bridge placeholders, they are updated using updateValue method
         String obj = getReplacements().findReplacement(String.valueOf(output));
         String newValue = setPlaceholders(obj, p);
@@ -65,6 +121,7 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
         }
         if (!lastValues.containsKey(p) || (!ERROR_VALUE.equals(newValue) && !identifier.equals(newValue) && !newValue.equals(lastValues.getOrDefault(p, null)))) {
             lastValues.put(p, ERROR_VALUE.equals(newValue) ? identifier : newValue);
+            p.markPropertiesDirty(identifier);
             updateParents(p);
             TAB.getInstance().getPlaceholderManager().getTabExpansion().setPlaceholderValue(p, identifier, newValue);
             return true;
@@ -89,6 +146,7 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
                 setPlaceholders(value.toString(), player));
         if (s.equals(lastValues.getOrDefault(player, identifier)) && !force) return;
         lastValues.put(player, s);
+        player.markPropertiesDirty(identifier);
         TAB.getInstance().getPlaceholderManager().getTabExpansion().setPlaceholderValue(player, identifier, s);
         Set<Refreshable> usage = TAB.getInstance().getPlaceholderManager().getPlaceholderUsage().get(identifier);
         if (usage == null) return;
@@ -96,7 +154,7 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
         for (Refreshable f : usage) {
             long time = System.nanoTime();
             f.refresh(player, false);
-            TAB.getInstance().getCPUManager().addTime(f.getFeatureName(), f.getRefreshDisplayName(), System.nanoTime()-time);
+            f.getRefreshCounter().add(System.nanoTime()-time);
         }
         updateParents(player);
     }
@@ -121,11 +179,12 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
             lastValues.put(p, getReplacements().findReplacement(identifier));
             update(p);
         }
-        return lastValues.get(p);
+        return lastValues.getOrDefault(p, identifier);
     }
 
     /**
-     * Calls the placeholder request function and returns the output.
+     * Calls the placeholder request function and returns the output. If the placeholder is not
+     * thread-safe, requests of placeholders from the same expansion are never run concurrently.
      * If the placeholder threw an exception, it is logged in {@code placeholder-errors.log}
      * file and "ERROR" is returned.
      *
@@ -135,7 +194,10 @@ public class PlayerPlaceholderImpl extends TabPlaceholder implements PlayerPlace
      */
     public Object request(@NonNull TabPlayer p) {
         try {
-            return function.apply(p);
+            if (requestLock == null) return function.apply(p);
+            synchronized (requestLock) {
+                return function.apply(p);
+            }
         } catch (Throwable t) {
             TAB.getInstance().getErrorManager().placeholderError("Player placeholder " + identifier + " generated an error when setting for player " + p.getName(), t);
             return ERROR_VALUE;
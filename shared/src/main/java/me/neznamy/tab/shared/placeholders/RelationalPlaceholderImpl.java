@@ -1,11 +1,11 @@
 package me.neznamy.tab.shared.placeholders;
 
 import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.function.BiFunction;
 
 import lombok.NonNull;
 import me.neznamy.tab.shared.features.types.Refreshable;
+import me.neznamy.tab.shared.platform.PlayerSlotMatrix;
 import me.neznamy.tab.shared.platform.TabPlayer;
 import me.neznamy.tab.shared.chat.EnumChatFormat;
 import me.neznamy.tab.api.placeholder.RelationalPlaceholder;
@@ -22,8 +22,11 @@ public class RelationalPlaceholderImpl extends TabPlaceholder implements Relatio
     /** Placeholder function returning fresh output on request */
     @NonNull private final BiFunction<me.neznamy.tab.api.TabPlayer, me.neznamy.tab.api.TabPlayer, Object> function;
 
-    /** Last known values for each online player duo after applying replacements and nested placeholders */
-    @NonNull private final WeakHashMap<me.neznamy.tab.api.TabPlayer, WeakHashMap<me.neznamy.tab.api.TabPlayer, String>> lastValues = new WeakHashMap<>();
+    /**
+     * Last known values for each online player duo after applying replacements and nested placeholders.
+     * Rows are indexed by slot of the viewer, columns by slot of the target.
+     */
+    @NonNull private final PlayerSlotMatrix<String> lastValues = new PlayerSlotMatrix<>();
 
     /**
      * Constructs new instance with given parameters
@@ -56,8 +59,8 @@ public class RelationalPlaceholderImpl extends TabPlaceholder implements Relatio
         Object output = request(viewer, target);
         if (output == null) return false; //bridge placeholders, they are updated using updateValue method
         String newValue = getReplacements().findReplacement(String.valueOf(output));
-        if (!lastValues.computeIfAbsent(viewer, v -> new WeakHashMap<>()).containsKey(target) || !lastValues.get(viewer).get(target).equals(newValue)) {
-            lastValues.get(viewer).put(target, newValue);
+        if (!newValue.equals(lastValues.get(viewer, target))) {
+            lastValues.put(viewer, target, newValue);
             updateParents(viewer);
             updateParents(target);
             return true;
@@ -81,15 +84,15 @@ public class RelationalPlaceholderImpl extends TabPlaceholder implements Relatio
      */
     private void updateValue(@NonNull TabPlayer viewer, @NonNull TabPlayer target, @Nullable Object value, boolean force) {
         String s = getReplacements().findReplacement(String.valueOf(value));
-        if (lastValues.computeIfAbsent(viewer, v -> new WeakHashMap<>()).containsKey(target) && lastValues.get(viewer).get(target).equals(s) && !force) return;
-        lastValues.get(viewer).put(target, s);
+        if (s.equals(lastValues.get(viewer, target)) && !force) return;
+        lastValues.put(viewer, target, s);
         Set<Refreshable> usage = TAB.getInstance().getPlaceholderManager().getPlaceholderUsage().get(identifier);
         if (usage == null) return;
         for (Refreshable f : usage) {
             long time = System.nanoTime();
             f.refresh(viewer, true);
             f.refresh(target, true);
-            TAB.getInstance().getCPUManager().addTime(f.getFeatureName(), f.getRefreshDisplayName(), System.nanoTime()-time);
+            f.getRefreshCounter().add(System.nanoTime()-time);
         }
         updateParents(viewer);
         updateParents(target);
@@ -116,8 +119,13 @@ public class RelationalPlaceholderImpl extends TabPlaceholder implements Relatio
      * @return  last known value for entered player duo
      */
     public String getLastValue(@NonNull TabPlayer viewer, @NonNull TabPlayer target) {
-        if (!lastValues.computeIfAbsent(viewer, v -> new WeakHashMap<>()).containsKey(target)) update(viewer, target);
-        return setPlaceholders(replacements.findReplacement(EnumChatFormat.color(lastValues.computeIfAbsent(viewer, v -> new WeakHashMap<>()).get(target))), target);
+        String value = lastValues.get(viewer, target);
+        if (value == null) {
+            update(viewer, target);
+            value = lastValues.get(viewer, target);
+            if (value == null) value = getReplacements().findReplacement(String.valueOf(request(viewer, target))); // Players without a slot
+        }
+        return setPlaceholders(replacements.findReplacement(EnumChatFormat.color(value)), target);
     }
 
     @Override
@@ -128,6 +136,7 @@ public class RelationalPlaceholderImpl extends TabPlaceholder implements Relatio
     @Override
     public void updateFromNested(@NonNull TabPlayer player) {
         for (TabPlayer all : TAB.getInstance().getOnlinePlayers()) {
+            if (!TAB.getInstance().getPlaceholderManager().isRelationalPairVisible(player, all)) continue;
             updateValue(player, all, request(player, all), true);
         }
     }
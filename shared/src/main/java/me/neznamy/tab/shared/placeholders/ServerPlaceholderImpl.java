@@ -59,6 +59,7 @@ public class ServerPlaceholderImpl extends TabPlaceholder implements ServerPlace
         if (!"ERROR".equals(newValue) && !identifier.equals(newValue) && (lastValue == null || !lastValue.equals(newValue))) {
             lastValue = newValue;
             for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
+                player.markPropertiesDirty(identifier);
                 updateParents(player);
                 TAB.getInstance().getPlaceholderManager().getTabExpansion().setPlaceholderValue(player, identifier, newValue);
             }
@@ -81,17 +82,27 @@ public class ServerPlaceholderImpl extends TabPlaceholder implements ServerPlace
         String s = getReplacements().findReplacement(value == null ? lastValue == null ? identifier : lastValue : value.toString());
         if (s.equals(lastValue) && !force) return;
         lastValue = s;
+        for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
+            player.markPropertiesDirty(identifier);
+        }
         Set<Refreshable> usage = TAB.getInstance().getPlaceholderManager().getPlaceholderUsage().get(identifier);
         if (usage == null) return;
+        Refreshable[] features = usage.toArray(new Refreshable[0]);
+        long[] totalTimes = new long[features.length];
         for (TabPlayer player : TAB.getInstance().getOnlinePlayers()) {
-            for (Refreshable f : usage) {
+            for (int i=0; i<features.length; i++) {
                 long time = System.nanoTime();
-                f.refresh(player, false);
-                TAB.getInstance().getCPUManager().addTime(f.getFeatureName(), f.getRefreshDisplayName(), System.nanoTime()-time);
+                features[i].refresh(player, false);
+                time = System.nanoTime()-time;
+                features[i].getRefreshCounter().addUsage(time);
+                totalTimes[i] += time;
             }
             updateParents(player);
             TAB.getInstance().getPlaceholderManager().getTabExpansion().setPlaceholderValue(player, identifier, s);
         }
+        for (int i=0; i<features.length; i++) {
+            features[i].getRefreshCounter().recordLatency(totalTimes[i]);
+        }
     }
 
     @Override
@@ -0,0 +1,190 @@
+package me.neznamy.tab.shared.platform;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import me.neznamy.tab.shared.chat.IChatBaseComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TabList which can buffer entry updates and send them together.
+ * While a batch is in progress, display name, latency and game mode
+ * updates are merged per entry with last value winning and sent once
+ * the batch is flushed, allowing implementations to put all of them
+ * into as few packets as possible. Outside of batches, updates are
+ * sent immediately. Batches may be nested, updates are sent when
+ * the outermost batch is flushed.
+ * <p>
+ * Adding an entry first sends pending update of that entry, removing
+ * an entry discards it, so the client receives changes in the same
+ * order as without buffering.
+ */
+public abstract class BufferedTabList implements TabList {
+
+    /** Amount of buffered values which were replaced by a newer value before being sent */
+    private static final LongAdder droppedUpdates = new LongAdder();
+
+    /** Pending updates of entries in order of first update */
+    private final Map<UUID, EntryUpdate> pending = new LinkedHashMap<>();
+
+    /** Amount of batches currently in progress */
+    private int batchDepth;
+
+    @Override
+    public synchronized void startBatch() {
+        batchDepth++;
+    }
+
+    @Override
+    public synchronized void flushBatch() {
+        if (batchDepth == 0 || --batchDepth > 0) return;
+        if (pending.isEmpty()) return;
+        List<EntryUpdate> updates = new ArrayList<>(pending.values());
+        pending.clear();
+        sendUpdates(updates);
+    }
+
+    @Override
+    public synchronized void clearBatch() {
+        pending.clear();
+    }
+
+    @Override
+    public synchronized void removeEntry(@NotNull UUID entry) {
+        pending.remove(entry);
+        sendRemoveEntry(entry);
+    }
+
+    @Override
+    public synchronized void addEntry(@NotNull Entry entry) {
+        EntryUpdate update = pending.remove(entry.getUniqueId());
+        if (update != null) sendUpdates(Collections.singletonList(update));
+        sendAddEntry(entry);
+    }
+
+    @Override
+    public synchronized void updateDisplayName(@NotNull UUID entry, @Nullable IChatBaseComponent displayName) {
+        EntryUpdate update = getUpdate(entry);
+        update.displayName = displayName;
+        if (!update.actions.add(Action.UPDATE_DISPLAY_NAME)) droppedUpdates.increment();
+        if (batchDepth == 0) flush(update);
+    }
+
+    @Override
+    public synchronized void updateLatency(@NotNull UUID entry, int latency) {
+        EntryUpdate update = getUpdate(entry);
+        update.latency = latency;
+        if (!update.actions.add(Action.UPDATE_LATENCY)) droppedUpdates.increment();
+        if (batchDepth == 0) flush(update);
+    }
+
+    @Override
+    public synchronized void updateGameMode(@NotNull UUID entry, int gameMode) {
+        EntryUpdate update = getUpdate(entry);
+        update.gameMode = gameMode;
+        if (!update.actions.add(Action.UPDATE_GAME_MODE)) droppedUpdates.increment();
+        if (batchDepth == 0) flush(update);
+    }
+
+    private @NotNull EntryUpdate getUpdate(@NotNull UUID entry) {
+        return batchDepth > 0 ? pending.computeIfAbsent(entry, EntryUpdate::new) : new EntryUpdate(entry);
+    }
+
+    private void flush(@NotNull EntryUpdate update) {
+        sendUpdates(Collections.singletonList(update));
+    }
+
+    /**
+     * Returns amount of entries with buffered updates
+     *
+     * @return  amount of entries with buffered updates
+     */
+    public synchronized int getPendingUpdates() {
+        return pending.size();
+    }
+
+    /**
+     * Returns amount of buffered values which were replaced by a newer
+     * value of the same entry before being sent.
+     *
+     * @return  amount of dropped updates
+     */
+    public static long getDroppedUpdates() {
+        return droppedUpdates.sum();
+    }
+
+    /**
+     * Groups updates by their action set, keeping order of updates in each group.
+     *
+     * @param   updates
+     *          Updates to group
+     * @return  Updates grouped by their action set
+     */
+    protected static @NotNull Map<EnumSet<Action>, List<EntryUpdate>> groupByActions(@NotNull Collection<EntryUpdate> updates) {
+        Map<EnumSet<Action>, List<EntryUpdate>> groups = new LinkedHashMap<>();
+        for (EntryUpdate update : updates) {
+            groups.computeIfAbsent(update.actions, a -> new ArrayList<>()).add(update);
+        }
+        return groups;
+    }
+
+    /**
+     * Sends updates of entries to the player. Each update only contains values
+     * of its actions, other values should be ignored.
+     *
+     * @param   updates
+     *          Updates to send, at most one per entry
+     */
+    protected abstract void sendUpdates(@NotNull Collection<EntryUpdate> updates);
+
+    /**
+     * Removes entry from the player's tablist
+     *
+     * @param   entry
+     *          UUID of entry to remove
+     */
+    protected abstract void sendRemoveEntry(@NotNull UUID entry);
+
+    /**
+     * Adds entry into the player's tablist
+     *
+     * @param   entry
+     *          Entry to add
+     */
+    protected abstract void sendAddEntry(@NotNull Entry entry);
+
+    /**
+     * Merged update of a single entry
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class EntryUpdate {
+
+        /** UUID of updated entry */
+        @NotNull private final UUID uniqueId;
+
+        /** Updated values, at least one */
+        @NotNull private final EnumSet<Action> actions = EnumSet.noneOf(Action.class);
+
+        /** New display name if updated */
+        @Nullable private IChatBaseComponent displayName;
+
+        /** New latency if updated */
+        private int latency;
+
+        /** New game mode if updated */
+        private int gameMode;
+
+        /**
+         * Converts this update into an entry with updated values
+         *
+         * @return  Entry with updated values
+         */
+        public @NotNull Entry toEntry() {
+            return new Entry(uniqueId, null, null, latency, gameMode, displayName);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package me.neznamy.tab.shared.platform;
+
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Map of per-player values backed by an array indexed by player's slot,
+ * which is assigned when player is added to online players. Lookups are
+ * simple array indexing instead of hashing.
+ * <p>
+ * Each slot holds an immutable entry with the player and the value. Setting a value
+ * publishes a new entry, so readers never see a player with value of another one.
+ * Player of the entry is compared by identity, so a player object kept after quit never
+ * receives value of another player reusing the slot. Entries of players who quit are not
+ * cleared eagerly, they are skipped once player's slot is released and replaced when
+ * the slot is reused.
+ * Values of players without an assigned slot, such as players who are still joining,
+ * are kept in a weak fallback map, so they are not lost and computed again on every call.
+ * Once the player gets a slot, the fallback value is still returned until a new value is set.
+ *
+ * @param   <V>
+ *          value type
+ */
+public class PlayerSlotMap<V> {
+
+    /** Entries of this map indexed by slot of their player */
+    private volatile Entry<V>[] entries = newEntries(16);
+
+    /** Values of players without a slot, created on first use */
+    @Nullable private volatile Map<me.neznamy.tab.api.TabPlayer, V> slotless;
+
+    /**
+     * Creates new empty entry array of specified size
+     *
+     * @param   size
+     *          array size
+     * @return  new entry array
+     * @param   <V>
+     *          value type
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V>[] newEntries(int size) {
+        return new Entry[size];
+    }
+
+    /**
+     * Returns slot of the player or {@code -1} if player does not have any
+     *
+     * @param   player
+     *          player to get slot of
+     * @return  slot of the player
+     */
+    private int getSlot(@NotNull me.neznamy.tab.api.TabPlayer player) {
+        return ((TabPlayer) player).getSlot();
+    }
+
+    /**
+     * Returns entry of specified player or {@code null} if player does not have one in the slot array
+     *
+     * @param   player
+     *          player to get entry of
+     * @return  entry of the player or {@code null} if not present
+     */
+    private @Nullable Entry<V> getEntry(@NotNull me.neznamy.tab.api.TabPlayer player) {
+        int slot = getSlot(player);
+        Entry<V>[] entries = this.entries;
+        if (slot < 0 || slot >= entries.length) return null;
+        Entry<V> entry = entries[slot];
+        return entry != null && entry.player == player ? entry : null;
+    }
+
+    /**
+     * Returns {@code true} if map contains entry of specified player, {@code false} if not
+     *
+     * @param   player
+     *          player to check
+     * @return  {@code true} if entry is present, {@code false} if not
+     */
+    public boolean containsKey(@NotNull me.neznamy.tab.api.TabPlayer player) {
+        if (getEntry(player) != null) return true;
+        Map<me.neznamy.tab.api.TabPlayer, V> slotless = this.slotless;
+        return slotless != null && slotless.containsKey(player);
+    }
+
+    /**
+     * Returns value of specified player or {@code null} if not present
+     *
+     * @param   player
+     *          player to get value of
+     * @return  value of the player or {@code null} if not present
+     */
+    public @Nullable V get(@NotNull me.neznamy.tab.api.TabPlayer player) {
+        return getOrDefault(player, null);
+    }
+
+    /**
+     * Returns value of specified player or default value if not present
+     *
+     * @param   player
+     *          player to get value of
+     * @param   defaultValue
+     *          value to return if entry is not present
+     * @return  value of the player or default value if not present
+     */
+    public V getOrDefault(@NotNull me.neznamy.tab.api.TabPlayer player, V defaultValue) {
+        Entry<V> entry = getEntry(player);
+        if (entry != null) return entry.value;
+        Map<me.neznamy.tab.api.TabPlayer, V> slotless = this.slotless;
+        return slotless == null ? defaultValue : slotless.getOrDefault(player, defaultValue);
+    }
+
+    /**
+     * Returns value of specified player. If not present, computes it using
+     * given function and stores it.
+     *
+     * @param   player
+     *          player to get value of
+     * @param   function
+     *          function computing value if not present
+     * @return  value of the player
+     */
+    public V computeIfAbsent(@NotNull me.neznamy.tab.api.TabPlayer player, @NotNull Function<me.neznamy.tab.api.TabPlayer, V> function) {
+        if (containsKey(player)) return get(player);
+        V value = function.apply(player);
+        put(player, value);
+        return value;
+    }
+
+    /**
+     * Sets value of specified player. If player does not have a slot, value is stored in the fallback map.
+     *
+     * @param   player
+     *          player to set value of
+     * @param   value
+     *          value to set
+     */
+    public synchronized void put(@NotNull me.neznamy.tab.api.TabPlayer player, @Nullable V value) {
+        int slot = getSlot(player);
+        if (slot < 0) {
+            Map<me.neznamy.tab.api.TabPlayer, V> slotless = this.slotless;
+            if (slotless == null) {
+                slotless = Collections.synchronizedMap(new WeakHashMap<>());
+                this.slotless = slotless;
+            }
+            slotless.put(player, value);
+            return;
+        }
+        Map<me.neznamy.tab.api.TabPlayer, V> slotless = this.slotless;
+        if (slotless != null) slotless.remove(player);
+        Entry<V>[] entries = this.entries;
+        if (slot >= entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length << 1, slot + 1));
+        }
+        entries[slot] = new Entry<>(player, value);
+        this.entries = entries;
+    }
+
+    /**
+     * Removes value of specified player and returns it
+     *
+     * @param   player
+     *          player to remove value of
+     * @return  removed value or {@code null} if not present
+     */
+    public synchronized @Nullable V remove(@NotNull me.neznamy.tab.api.TabPlayer player) {
+        V value = get(player);
+        Map<me.neznamy.tab.api.TabPlayer, V> slotless = this.slotless;
+        if (slotless != null) slotless.remove(player);
+        if (getEntry(player) != null) {
+            entries[getSlot(player)] = null;
+        }
+        return value;
+    }
+
+    /**
+     * Removes all entries
+     */
+    public synchronized void clear() {
+        entries = newEntries(entries.length);
+        slotless = null;
+    }
+
+    /**
+     * Performs given action for every value in the map. Entries of players
+     * whose slot was released are skipped.
+     *
+     * @param   action
+     *          action to perform
+     */
+    public void forEachValue(@NotNull Consumer<V> action) {
+        Entry<V>[] entries = this.entries;
+        for (int i=0; i<entries.length; i++) {
+            Entry<V> entry = entries[i];
+            if (entry != null && getSlot(entry.player) == i) action.accept(entry.value);
+        }
+        Map<me.neznamy.tab.api.TabPlayer, V> slotless = this.slotless;
+        if (slotless != null) {
+            synchronized (slotless) {
+                slotless.values().forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Player and their value stored in a slot. Never modified after creation,
+     * setting a new value replaces the whole entry.
+     *
+     * @param   <V>
+     *          value type
+     */
+    @RequiredArgsConstructor
+    private static class Entry<V> {
+
+        /** Player owning this entry */
+        @NotNull private final me.neznamy.tab.api.TabPlayer player;
+
+        /** Value of the player */
+        @Nullable private final V value;
+    }
+}
@@ -0,0 +1,142 @@
+package me.neznamy.tab.shared.platform;
+
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Map of values of player pairs backed by a single dense array indexed by slots
+ * of both players. Player owning each slot is stored as well and compared by identity,
+ * so values of a player who quit are never returned for another player reusing the slot.
+ * Row and column of a player who quit are not cleared eagerly, they are cleared once
+ * another player claims the slot.
+ * Players without an assigned slot are never stored.
+ *
+ * @param   <V>
+ *          value type
+ */
+public class PlayerSlotMatrix<V> {
+
+    /** Current content, replaced when matrix needs to grow */
+    private volatile Content content = new Content(new TabPlayer[16], new Object[16 * 16]);
+
+    /**
+     * Returns value of specified player pair or {@code null} if not present
+     *
+     * @param   first
+     *          first player of the pair
+     * @param   second
+     *          second player of the pair
+     * @return  value of the pair or {@code null} if not present
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(@NotNull TabPlayer first, @NotNull TabPlayer second) {
+        Content content = this.content;
+        int firstSlot = first.getSlot();
+        int secondSlot = second.getSlot();
+        int size = content.owners.length;
+        if (firstSlot < 0 || secondSlot < 0 || firstSlot >= size || secondSlot >= size) return null;
+        if (content.owners[firstSlot] != first || content.owners[secondSlot] != second) return null;
+        return (V) content.values[firstSlot * size + secondSlot];
+    }
+
+    /**
+     * Sets value of specified player pair. If any of the players does not have a slot, nothing happens.
+     *
+     * @param   first
+     *          first player of the pair
+     * @param   second
+     *          second player of the pair
+     * @param   value
+     *          value to set
+     */
+    public synchronized void put(@NotNull TabPlayer first, @NotNull TabPlayer second, @NotNull V value) {
+        int firstSlot = first.getSlot();
+        int secondSlot = second.getSlot();
+        if (firstSlot < 0 || secondSlot < 0) return;
+        Content content = this.content;
+        int required = Math.max(firstSlot, secondSlot) + 1;
+        if (required > content.owners.length) {
+            content = content.grow(Math.max(content.owners.length << 1, required));
+        }
+        claim(content, first, firstSlot);
+        claim(content, second, secondSlot);
+        content.values[firstSlot * content.owners.length + secondSlot] = value;
+        this.content = content;
+    }
+
+    /**
+     * Marks slot as owned by the player, clearing values of previous owner.
+     *
+     * @param   content
+     *          content to modify
+     * @param   player
+     *          player owning the slot
+     * @param   slot
+     *          slot of the player
+     */
+    private void claim(@NotNull Content content, @NotNull TabPlayer player, int slot) {
+        if (content.owners[slot] == player) return;
+        content.clear(slot);
+        content.owners[slot] = player;
+    }
+
+    /**
+     * Removes row and column of specified player
+     *
+     * @param   player
+     *          player to remove values of
+     */
+    public synchronized void remove(@NotNull TabPlayer player) {
+        int slot = player.getSlot();
+        Content content = this.content;
+        if (slot < 0 || slot >= content.owners.length || content.owners[slot] != player) return;
+        content.clear(slot);
+        content.owners[slot] = null;
+    }
+
+    /**
+     * Owners of slots and values of the matrix with the same size
+     */
+    @RequiredArgsConstructor
+    private static class Content {
+
+        /** Player owning each slot */
+        @NotNull private final TabPlayer[] owners;
+
+        /** Values of pairs, value of pair {@code (i, j)} is at index {@code i * owners.length + j} */
+        @NotNull private final Object[] values;
+
+        /**
+         * Returns copy of this content with specified size
+         *
+         * @param   size
+         *          new amount of slots
+         * @return  copy with new size
+         */
+        @NotNull Content grow(int size) {
+            Object[] newValues = new Object[size * size];
+            int oldSize = owners.length;
+            for (int i=0; i<oldSize; i++) {
+                System.arraycopy(values, i * oldSize, newValues, i * size, oldSize);
+            }
+            return new Content(Arrays.copyOf(owners, size), newValues);
+        }
+
+        /**
+         * Clears row and column of specified slot
+         *
+         * @param   slot
+         *          slot to clear
+         */
+        void clear(int slot) {
+            int size = owners.length;
+            Arrays.fill(values, slot * size, (slot + 1) * size, null);
+            for (int i=0; i<size; i++) {
+                values[i * size + slot] = null;
+            }
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package me.neznamy.tab.shared.platform;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import me.neznamy.tab.shared.TAB;
 import me.neznamy.tab.shared.chat.EnumChatFormat;
 import me.neznamy.tab.shared.chat.rgb.RGBUtils;
+import me.neznamy.tab.shared.platform.UpdateQueue.UpdateType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -17,18 +20,24 @@ public abstract class Scoreboard<T extends TabPlayer> {
     /** Player this scoreboard belongs to */
     protected final T player;
 
-    /** Scoreboard teams player has registered */
-    private final Set<String> registeredTeams = new HashSet<>();
+    /** Amount of team updates which were not sent, because player already had the same values */
+    private static final LongAdder suppressedTeamUpdates = new LongAdder();
+
+    /** Scoreboard teams player has registered with last values sent to the player */
+    private final Map<String, Team> registeredTeams = new HashMap<>();
 
     /** Scoreboard objectives player has registered */
     private final Set<String> registeredObjectives = new HashSet<>();
 
+    /** Queue of team, objective and score updates of this player */
+    @Getter private final UpdateQueue updateQueue = new UpdateQueue();
+
     public void setScore(@NotNull String objective, @NotNull String playerName, int score) {
         if (!registeredObjectives.contains(objective)) {
             error("Tried to update score (%s) without the existence of its requested objective '%s' to player ", playerName, objective);
             return;
         }
-        setScore0(objective, playerName, score);
+        updateQueue.queue(UpdateType.SCORE, objective, playerName, () -> setScore0(objective, playerName, score));
     }
 
     public void removeScore(@NotNull String objective, @NotNull String playerName) {
@@ -36,7 +45,7 @@ public abstract class Scoreboard<T extends TabPlayer> {
             error("Tried to remove score (%s) without the existence of its requested objective '%s' to player ", playerName, objective);
             return;
         }
-        removeScore0(objective, playerName);
+        updateQueue.queue(UpdateType.SCORE, objective, playerName, () -> removeScore0(objective, playerName));
     }
 
     public void registerObjective(@NotNull String objectiveName, @NotNull String title, boolean hearts) {
@@ -52,7 +61,7 @@ public abstract class Scoreboard<T extends TabPlayer> {
             error("Tried to unregister non-existing objective %s for player ", objectiveName);
             return;
         }
-        unregisterObjective0(objectiveName);
+        updateQueue.send(objectiveName, () -> unregisterObjective0(objectiveName), UpdateType.OBJECTIVE, UpdateType.SCORE);
     }
 
     public void updateObjective(@NotNull String objectiveName, @NotNull String title, boolean hearts) {
@@ -60,33 +69,59 @@ public abstract class Scoreboard<T extends TabPlayer> {
             error("Tried to modify non-existing objective %s for player ", objectiveName);
             return;
         }
-        updateObjective0(objectiveName, cutTo(title, 32), hearts);
+        String cutTitle = cutTo(title, 32);
+        updateQueue.queue(UpdateType.OBJECTIVE, objectiveName, null, () -> updateObjective0(objectiveName, cutTitle, hearts));
     }
 
     public void registerTeam(@NotNull String name, @NotNull String prefix, @NotNull String suffix, @NotNull NameVisibility visibility,
                              @NotNull CollisionRule collision, @NotNull Collection<String> players, int options) {
-        if (!registeredTeams.add(name)) {
+        if (registeredTeams.containsKey(name)) {
             error("Tried to register duplicated team %s to player ", name);
             return;
         }
-        registerTeam0(name, cutTo(prefix, 16), cutTo(suffix, 16), visibility, collision, players, options);
+        Team team = new Team(cutTo(prefix, 16), cutTo(suffix, 16), visibility, collision, options);
+        registeredTeams.put(name, team);
+        registerTeam0(name, team.prefix, team.suffix, visibility, collision, players, options);
     }
 
     public void unregisterTeam(@NotNull String name) {
-        if (!registeredTeams.remove(name)) {
+        if (registeredTeams.remove(name) == null) {
             error("Tried to unregister non-existing team %s for player ", name);
             return;
         }
-        unregisterTeam0(name);
+        updateQueue.send(name, () -> unregisterTeam0(name), UpdateType.TEAM);
     }
 
     public void updateTeam(@NotNull String name, @NotNull String prefix, @NotNull String suffix, @NotNull NameVisibility visibility,
                            @NotNull CollisionRule collision, int options) {
-        if (!registeredTeams.contains(name)) {
+        Team team = registeredTeams.get(name);
+        if (team == null) {
             error("Tried to modify non-existing team %s for player ", name);
             return;
         }
-        updateTeam0(name, cutTo(prefix, 16), cutTo(suffix, 16), visibility, collision, options);
+        String cutPrefix = cutTo(prefix, 16);
+        String cutSuffix = cutTo(suffix, 16);
+        if (team.prefix.equals(cutPrefix) && team.suffix.equals(cutSuffix) && team.visibility == visibility &&
+                team.collision == collision && team.options == options) {
+            suppressedTeamUpdates.increment();
+            return;
+        }
+        team.prefix = cutPrefix;
+        team.suffix = cutSuffix;
+        team.visibility = visibility;
+        team.collision = collision;
+        team.options = options;
+        updateQueue.queue(UpdateType.TEAM, name, null, () -> updateTeam0(name, cutPrefix, cutSuffix, visibility, collision, options));
+    }
+
+    /**
+     * Returns amount of team updates which were not sent to any player,
+     * because the player already had the same values.
+     *
+     * @return  amount of suppressed team updates
+     */
+    public static long getSuppressedTeamUpdates() {
+        return suppressedTeamUpdates.sum();
     }
 
     private void error(@NotNull String format, @NotNull Object... args) {
@@ -94,11 +129,12 @@ public abstract class Scoreboard<T extends TabPlayer> {
     }
 
     /**
-     * Clears maps of registered teams and objectives on server switch, as proxy sends Login packet
+     * Clears maps of registered teams and objectives and queued updates on server switch, as proxy sends Login packet
      */
     public void clearRegisteredObjectives() {
         registeredTeams.clear();
         registeredObjectives.clear();
+        updateQueue.clear();
     }
 
     /**
@@ -151,6 +187,19 @@ public abstract class Scoreboard<T extends TabPlayer> {
 
     public enum DisplaySlot { PLAYER_LIST, SIDEBAR, BELOW_NAME }
 
+    /**
+     * Values of a team last sent to the player
+     */
+    @AllArgsConstructor
+    private static class Team {
+
+        @NotNull private String prefix;
+        @NotNull private String suffix;
+        @NotNull private NameVisibility visibility;
+        @NotNull private CollisionRule collision;
+        private int options;
+    }
+
     @AllArgsConstructor
     public enum CollisionRule {
 
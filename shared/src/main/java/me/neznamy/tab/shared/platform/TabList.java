@@ -32,6 +32,26 @@ public interface TabList {
 
     void addEntry(@NotNull Entry entry);
 
+    /**
+     * Starts buffering entry updates until {@link #flushBatch()} is called,
+     * so they can be sent together. Does nothing if not supported.
+     */
+    default void startBatch() {}
+
+    /**
+     * Sends all entry updates buffered since {@link #startBatch()} and
+     * stops buffering. If batches are nested, updates are only sent when
+     * the outermost batch is flushed. Does nothing if not supported.
+     */
+    default void flushBatch() {}
+
+    /**
+     * Discards all entry updates buffered in current batch without sending them.
+     * Used when player switches server, as updates were meant for entries of
+     * the previous server. Does nothing if not supported.
+     */
+    default void clearBatch() {}
+
     /**
      * Sets header and footer to specified values
      *
@@ -1,5 +1,6 @@
 package me.neznamy.tab.shared.platform;
 
+import io.netty.channel.Channel;
 import lombok.Getter;
 import lombok.Setter;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
@@ -13,6 +14,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract class storing common variables and functions for player,
@@ -53,6 +55,24 @@ public abstract class TabPlayer implements me.neznamy.tab.api.TabPlayer {
     /** Player's property map where key is unique identifier and value is property object */
     private final Map<String, Property> properties = new HashMap<>();
 
+    /** Player's properties indexed by identifiers of placeholders they use, used to mark them dirty on change */
+    private final Map<String, Set<Property>> propertiesByPlaceholder = new ConcurrentHashMap<>();
+
+    /** Properties marked as dirty which were not updated since */
+    @Getter private final Set<Property> dirtyProperties = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Compact index of the player among online players, recycled after quit
+     * and used by {@link PlayerSlotMap}, {@code -1} if player is not online.
+     */
+    @Getter @Setter private int slot = -1;
+
+    /** Player's netty channel used to write packets without flushing them, {@code null} if not available */
+    @Getter @Setter @Nullable private volatile Channel channel;
+
+    /** Whether packets are only written into {@link #channel} and flushed at the end of {@link #runWithSingleFlush(Runnable)} */
+    private volatile boolean writeOnly;
+
     /** Player's game version */
     @Getter protected final ProtocolVersion version;
 
@@ -197,6 +217,7 @@ public abstract class TabPlayer implements me.neznamy.tab.api.TabPlayer {
 
     public void forceRefresh() {
         if (!loaded) return;
+        properties.values().forEach(Property::markDirty);
         TAB.getInstance().getFeatureManager().refresh(this, true);
     }
 
@@ -204,6 +225,52 @@ public abstract class TabPlayer implements me.neznamy.tab.api.TabPlayer {
         return properties.get(name);
     }
 
+    /**
+     * Registers property as one using specified placeholders, so it gets marked
+     * dirty when any of them changes value for this player.
+     *
+     * @param   property
+     *          property to index
+     * @param   placeholders
+     *          placeholders used in the property
+     */
+    public void indexProperty(@NotNull Property property, @NotNull Collection<String> placeholders) {
+        for (String placeholder : placeholders) {
+            propertiesByPlaceholder.computeIfAbsent(placeholder, p -> ConcurrentHashMap.newKeySet()).add(property);
+        }
+    }
+
+    /**
+     * Removes property from placeholder index of previously used placeholders.
+     *
+     * @param   property
+     *          property to remove
+     * @param   placeholders
+     *          placeholders property was indexed under
+     */
+    public void unindexProperty(@NotNull Property property, @NotNull String[] placeholders) {
+        for (String placeholder : placeholders) {
+            Set<Property> set = propertiesByPlaceholder.get(placeholder);
+            if (set != null) set.remove(property);
+        }
+    }
+
+    /**
+     * Marks all properties of this player using specified placeholder as dirty,
+     * which makes them format their text again on next update. Marked properties
+     * are collected in {@link #getDirtyProperties()} until they are updated.
+     *
+     * @param   placeholder
+     *          identifier of placeholder which changed value
+     */
+    public void markPropertiesDirty(@NotNull String placeholder) {
+        Set<Property> set = propertiesByPlaceholder.get(placeholder);
+        if (set == null) return;
+        for (Property property : set) {
+            property.markDirty();
+        }
+    }
+
     @Override
     public @NotNull String getGroup() {
         return temporaryGroup != null ? temporaryGroup : permissionGroup;
@@ -244,6 +311,45 @@ public abstract class TabPlayer implements me.neznamy.tab.api.TabPlayer {
         return setProperty(feature, property, ifNotSet, "None", true);
     }
 
+    /**
+     * Runs the task while packets sent to this player are only written into player's
+     * channel and flushes the channel once at the end, so all of them are sent together.
+     * If channel is not available, packets are sent normally.
+     *
+     * @param   task
+     *          task sending packets
+     */
+    public void runWithSingleFlush(@NotNull Runnable task) {
+        Channel channel = this.channel;
+        if (channel == null) {
+            task.run();
+            return;
+        }
+        writeOnly = true;
+        try {
+            task.run();
+        } finally {
+            writeOnly = false;
+            channel.flush();
+        }
+    }
+
+    /**
+     * Writes packet into player's channel without flushing it if called from
+     * {@link #runWithSingleFlush(Runnable)}. Platforms call this before sending
+     * a packet and only send it normally if this returns {@code false}.
+     *
+     * @param   packet
+     *          platform's packet to write
+     * @return  {@code true} if packet was written, {@code false} if it should be sent normally
+     */
+    protected boolean writeWithoutFlush(@NotNull Object packet) {
+        Channel channel = this.channel;
+        if (!writeOnly || channel == null) return false;
+        channel.write(packet, channel.voidPromise());
+        return true;
+    }
+
     /**
      * Returns scoreboard interface for calling scoreboard-related methods
      *
@@ -0,0 +1,133 @@
+package me.neznamy.tab.shared.platform;
+
+import lombok.Data;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue of scoreboard updates of a single player. While enabled, updates are
+ * stored by their type and target and only the last update of each target
+ * is sent when the queue is flushed. While disabled, updates are sent
+ * immediately.
+ */
+public class UpdateQueue {
+
+    /** Amount of queued updates which were replaced by a newer update of the same target before being sent */
+    private static final LongAdder droppedUpdates = new LongAdder();
+
+    /** Pending updates in order of first update of their target */
+    private final Map<Key, Runnable> pending = new LinkedHashMap<>();
+
+    /** Whether updates are queued or sent immediately */
+    @Getter private boolean enabled;
+
+    /**
+     * Queues update of specified target, replacing previously queued update
+     * of the same target. If queue is disabled, the update is sent immediately.
+     *
+     * @param   type
+     *          Type of the update
+     * @param   id
+     *          Name of updated team or objective
+     * @param   subId
+     *          Name of updated score holder for scores, {@code null} otherwise
+     * @param   update
+     *          Task sending the update
+     */
+    public synchronized void queue(@NotNull UpdateType type, @NotNull String id, @Nullable String subId, @NotNull Runnable update) {
+        if (!enabled) {
+            update.run();
+            return;
+        }
+        if (pending.put(new Key(type, id, subId), update) != null) droppedUpdates.increment();
+    }
+
+    /**
+     * Discards all queued updates of specified types targeting specified team or objective
+     * and sends the packet immediately. Used for packets which make queued updates invalid,
+     * such as unregistering the team or objective.
+     *
+     * @param   id
+     *          Name of the team or objective
+     * @param   packet
+     *          Task sending the packet
+     * @param   discardedTypes
+     *          Types of updates to discard
+     */
+    public synchronized void send(@NotNull String id, @NotNull Runnable packet, @NotNull UpdateType... discardedTypes) {
+        if (!pending.isEmpty()) {
+            List<UpdateType> types = Arrays.asList(discardedTypes);
+            pending.keySet().removeIf(key -> key.id.equals(id) && types.contains(key.type));
+        }
+        packet.run();
+    }
+
+    /**
+     * Sends all queued updates.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        for (Runnable update : pending.values()) {
+            update.run();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Discards all queued updates without sending them. Used when player's
+     * scoreboard is reset by the server.
+     */
+    public synchronized void clear() {
+        pending.clear();
+    }
+
+    /**
+     * Enables or disables queueing. When disabling, queued updates are sent.
+     *
+     * @param   enabled
+     *          {@code true} to queue updates, {@code false} to send them immediately
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) flush();
+    }
+
+    /**
+     * Returns amount of currently queued updates
+     *
+     * @return  amount of queued updates
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Returns amount of queued updates which were replaced by a newer
+     * update of the same target before being sent.
+     *
+     * @return  amount of dropped updates
+     */
+    public static long getDroppedUpdates() {
+        return droppedUpdates.sum();
+    }
+
+    /**
+     * Type of queued update
+     */
+    public enum UpdateType { TEAM, OBJECTIVE, SCORE }
+
+    /**
+     * Target of an update
+     */
+    @Data
+    private static class Key {
+
+        @NotNull private final UpdateType type;
+        @NotNull private final String id;
+        @Nullable private final String subId;
+    }
+}
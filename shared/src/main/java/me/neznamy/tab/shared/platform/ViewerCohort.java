@@ -0,0 +1,49 @@
+package me.neznamy.tab.shared.platform;
+
+import me.neznamy.tab.shared.ProtocolVersion;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Groups of client versions which render text the same way. Content sent to many
+ * viewers only needs to be converted once per cohort instead of once per viewer.
+ */
+public enum ViewerCohort {
+
+    /** Clients below 1.13, which use legacy text with length limits in scoreboard */
+    LEGACY,
+
+    /** Clients 1.13 - 1.15, which use components, but without RGB support */
+    PRE_1_16,
+
+    /** Clients 1.16 - 1.19.2, which support RGB */
+    MODERN,
+
+    /** Clients 1.19.3+, which also use the new player info packets */
+    MODERN_1_19_3;
+
+    /** Creating a constant to avoid memory allocations on each request */
+    public static final ViewerCohort[] VALUES = values();
+
+    /**
+     * Returns cohort of specified client version
+     *
+     * @param   version
+     *          client version
+     * @return  cohort of the version
+     */
+    public static @NotNull ViewerCohort of(@NotNull ProtocolVersion version) {
+        if (version.getNetworkId() >= ProtocolVersion.V1_19_3.getNetworkId()) return MODERN_1_19_3;
+        if (version.getMinorVersion() >= 16) return MODERN;
+        if (version.getMinorVersion() >= 13) return PRE_1_16;
+        return LEGACY;
+    }
+
+    /**
+     * Returns {@code true} if clients in this cohort support RGB colors, {@code false} if not
+     *
+     * @return  {@code true} if RGB is supported, {@code false} if not
+     */
+    public boolean isRgbSupported() {
+        return this == MODERN || this == MODERN_1_19_3;
+    }
+}
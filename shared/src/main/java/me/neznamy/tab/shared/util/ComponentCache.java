@@ -1,29 +1,239 @@
 package me.neznamy.tab.shared.util;
 
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.SneakyThrows;
 import me.neznamy.tab.shared.ProtocolVersion;
+import me.neznamy.tab.shared.TAB;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
-@AllArgsConstructor
+/**
+ * Bounded thread-safe cache of converted components. Entries are split into
+ * segments by key hash, each guarded by its own lock and evicting using
+ * segmented LRU: new entries enter a probation area and are promoted into
+ * a protected area on their second access. Entries accessed only once are
+ * evicted first, so a burst of new values (such as animation frames) cannot
+ * push out frequently used entries.
+ * <p>
+ * Clients below 1.16 and 1.16+ clients use separate entries, since RGB colors
+ * are converted differently for them.
+ *
+ * @param   <K>
+ *          key type
+ * @param   <V>
+ *          value type
+ */
 public class ComponentCache<K, V> {
 
-    private final int cacheSize;
+    /** All created caches for configuration and statistics */
+    @Getter private static final List<ComponentCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+
+    /** Amount of segments of each cache */
+    private static final int SEGMENTS = 16;
+
+    /** Share of segment capacity reserved for entries accessed more than once */
+    private static final float PROTECTED_RATIO = 0.8f;
+
+    /** Name of this cache, used in config and /tab cpu */
+    @Getter private final String name;
+
+    /** Capacity if not configured */
+    private final int defaultSize;
+
+    /** Function converting key to value on cache miss */
     private final BiFunctionWithException<K, ProtocolVersion, V> function;
-    private final Map<K, V> cacheModern = new HashMap<>();
-    private final Map<K, V> cacheLegacy = new HashMap<>();
 
+    /** Segments for 1.16+ clients */
+    private final Segment<K, V>[] modern = createSegments();
+
+    /** Segments for clients below 1.16 */
+    private final Segment<K, V>[] legacy = createSegments();
+
+    /** Amount of lookups which found the value in cache */
+    private final LongAdder hits = new LongAdder();
+
+    /** Amount of lookups which had to compute the value */
+    private final LongAdder misses = new LongAdder();
+
+    /** Amount of entries removed to make space for new ones */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs new instance with given parameters and registers it
+     *
+     * @param   name
+     *          name of the cache
+     * @param   cacheSize
+     *          maximum amount of entries per client version group if not configured
+     * @param   function
+     *          function converting key to value
+     */
+    public ComponentCache(@NotNull String name, int cacheSize, @NotNull BiFunctionWithException<K, ProtocolVersion, V> function) {
+        this.name = name;
+        this.defaultSize = cacheSize;
+        this.function = function;
+        setCapacity(cacheSize);
+        caches.add(this);
+    }
+
+    /**
+     * Loads configured sizes of all caches from {@code component-cache-size.<name>}
+     * option in config. Called on plugin load.
+     */
+    public static void loadConfiguredSizes() {
+        for (ComponentCache<?, ?> cache : caches) {
+            cache.setCapacity(TAB.getInstance().getConfiguration().getSecretOption(
+                    "component-cache-size." + cache.name, cache.defaultSize));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] createSegments() {
+        Segment<K, V>[] segments = new Segment[SEGMENTS];
+        for (int i=0; i<SEGMENTS; i++) segments[i] = new Segment<>();
+        return segments;
+    }
+
+    /**
+     * Sets maximum amount of entries per client version group
+     *
+     * @param   capacity
+     *          new capacity
+     */
+    public void setCapacity(int capacity) {
+        int segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (Segment<K, V> segment : modern) segment.setCapacity(segmentCapacity);
+        for (Segment<K, V> segment : legacy) segment.setCapacity(segmentCapacity);
+    }
+
+    /**
+     * Returns cached value of the key for given client version. If not present,
+     * computes it and stores it in the cache.
+     *
+     * @param   key
+     *          key to get value of
+     * @param   clientVersion
+     *          version of client the value is for, {@code null} for 1.16+
+     * @return  converted value
+     */
     @SneakyThrows
     public @NotNull V get(@NotNull K key, @Nullable ProtocolVersion clientVersion) {
-        Map<K, V> cache = clientVersion == null || clientVersion.getMinorVersion() >= 16 ? cacheModern : cacheLegacy;
-        if (cache.containsKey(key)) return cache.get(key);
-        V value = function.apply(key, clientVersion);
-        if (cache.size() > cacheSize) cache.clear();
-        cache.put(key, value);
+        Segment<K, V>[] segments = clientVersion == null || clientVersion.getMinorVersion() >= 16 ? modern : legacy;
+        int hash = key.hashCode();
+        Segment<K, V> segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        V value = segment.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = function.apply(key, clientVersion);
+        evictions.add(segment.put(key, value));
         return value;
     }
+
+    /**
+     * Returns amount of lookups which found the value in cache
+     *
+     * @return  amount of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns amount of lookups which had to compute the value
+     *
+     * @return  amount of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns amount of entries removed to make space for new ones
+     *
+     * @return  amount of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Single segment of the cache using segmented LRU eviction
+     *
+     * @param   <K>
+     *          key type
+     * @param   <V>
+     *          value type
+     */
+    private static class Segment<K, V> {
+
+        /** Entries accessed once, in access order */
+        private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Entries accessed more than once, in access order */
+        private final LinkedHashMap<K, V> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Maximum amount of entries in this segment */
+        private int capacity;
+
+        /** Maximum amount of entries in protected area */
+        private int protectedCapacity;
+
+        synchronized void setCapacity(int capacity) {
+            this.capacity = capacity;
+            protectedCapacity = (int) (capacity * PROTECTED_RATIO);
+        }
+
+        /**
+         * Returns value of the key or {@code null} if not present. Promotes the entry
+         * into protected area if it was in probation.
+         *
+         * @param   key
+         *          key to get value of
+         * @return  value of the key or {@code null} if not present
+         */
+        synchronized @Nullable V get(@NotNull K key) {
+            V value = protectedEntries.get(key);
+            if (value != null) return value;
+            value = probation.remove(key);
+            if (value == null) return null;
+            protectedEntries.put(key, value);
+            while (protectedEntries.size() > protectedCapacity && !protectedEntries.isEmpty()) {
+                Map.Entry<K, V> eldest = protectedEntries.entrySet().iterator().next();
+                protectedEntries.remove(eldest.getKey());
+                probation.put(eldest.getKey(), eldest.getValue());
+            }
+            return value;
+        }
+
+        /**
+         * Adds entry into probation area and evicts least recently used entries
+         * if segment is over capacity.
+         *
+         * @param   key
+         *          key to add
+         * @param   value
+         *          value of the key
+         * @return  amount of evicted entries
+         */
+        synchronized int put(@NotNull K key, @NotNull V value) {
+            if (protectedEntries.containsKey(key)) return 0;
+            probation.put(key, value);
+            int evicted = 0;
+            while (probation.size() + protectedEntries.size() > capacity) {
+                Map<K, V> source = probation.isEmpty() ? protectedEntries : probation;
+                Iterator<K> iterator = source.keySet().iterator();
+                iterator.next();
+                iterator.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
 }
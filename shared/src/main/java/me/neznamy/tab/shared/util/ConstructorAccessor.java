@@ -0,0 +1,94 @@
+package me.neznamy.tab.shared.util;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Fast creating of new instances using a method handle created when the constructor
+ * is loaded, which avoids access checks and argument validation of reflection on every
+ * call. If method handle cannot be created for the constructor, which may happen on
+ * some server forks, plain reflection is used instead.
+ */
+public class ConstructorAccessor {
+
+    /** Invoked constructor */
+    @Getter @NotNull private final Constructor<?> constructor;
+
+    /** Handle with {@code (Object[])Object} type or {@code null} if using reflection */
+    @Nullable private final MethodHandle handle;
+
+    private ConstructorAccessor(@NotNull Constructor<?> constructor) {
+        this.constructor = constructor;
+        MethodHandle handle;
+        try {
+            ReflectionUtils.setAccessible(constructor);
+            int parameters = constructor.getParameterCount();
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.genericMethodType(parameters)).asSpreader(Object[].class, parameters);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Falling back to reflection
+            handle = null;
+        }
+        this.handle = handle;
+    }
+
+    /**
+     * Creates accessor of specified constructor
+     *
+     * @param   constructor
+     *          Constructor to invoke
+     * @return  Accessor of the constructor
+     */
+    public static @NotNull ConstructorAccessor of(@NotNull Constructor<?> constructor) {
+        return new ConstructorAccessor(constructor);
+    }
+
+    /**
+     * Creates new instance using specified arguments
+     *
+     * @param   args
+     *          Constructor arguments
+     * @return  Created instance
+     * @throws  InstantiationException
+     *          If using reflection and the class is abstract
+     * @throws  IllegalAccessException
+     *          If using reflection and the constructor is inaccessible
+     * @throws  InvocationTargetException
+     *          If the constructor threw an exception
+     */
+    public Object newInstance(@NotNull Object... args) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if (handle == null) return constructor.newInstance(args);
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Returns parameter types of the constructor
+     *
+     * @return  Parameter types of the constructor
+     */
+    public @NotNull Class<?>[] getParameterTypes() {
+        return constructor.getParameterTypes();
+    }
+
+    /**
+     * Returns amount of parameters of the constructor
+     *
+     * @return  Amount of parameters of the constructor
+     */
+    public int getParameterCount() {
+        return constructor.getParameterCount();
+    }
+}
@@ -0,0 +1,176 @@
+package me.neznamy.tab.shared.util;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Fast access to a field using method handles created when the field is loaded,
+ * which avoid access checks and argument validation of reflection on every call.
+ * If method handles cannot be created for the field, which may happen on
+ * some server forks, plain reflection is used instead.
+ */
+public class FieldAccessor {
+
+    /** Accessed field */
+    @Getter @NotNull private final Field field;
+
+    /** Getter with {@code (Object)Object} type or {@code null} if using reflection */
+    @Nullable private final MethodHandle getter;
+
+    /** Getter with {@code (Object)int} type or {@code null} if field is not an int or using reflection */
+    @Nullable private final MethodHandle intGetter;
+
+    /** Setter with {@code (Object,Object)void} type or {@code null} if using reflection */
+    @Nullable private final MethodHandle setter;
+
+    private FieldAccessor(@NotNull Field field) {
+        this.field = field;
+        MethodHandle getter = null;
+        MethodHandle intGetter = null;
+        MethodHandle setter = null;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+        try {
+            ReflectionUtils.setAccessible(field);
+        } catch (RuntimeException e) {
+            // Handles may still work for accessible fields
+        }
+        try {
+            MethodHandle get = lookup.unreflectGetter(field);
+            if (isStatic) get = MethodHandles.dropArguments(get, 0, Object.class);
+            getter = get.asType(MethodType.methodType(Object.class, Object.class));
+            if (field.getType() == int.class) intGetter = get.asType(MethodType.methodType(int.class, Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Falling back to reflection for reading
+        }
+        // Setter cannot be created for static final fields and final fields of records,
+        // reading keeps using handles in that case. Records are detected by their superclass,
+        // because Class#isRecord is not available on all supported Java versions.
+        boolean isFinal = Modifier.isFinal(field.getModifiers());
+        Class<?> superclass = field.getDeclaringClass().getSuperclass();
+        boolean isRecord = superclass != null && superclass.getName().equals("java.lang.Record");
+        if (!(isFinal && (isStatic || isRecord))) {
+            try {
+                MethodHandle set = lookup.unreflectSetter(field);
+                if (isStatic) set = MethodHandles.dropArguments(set, 0, Object.class);
+                setter = set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Falling back to reflection for writing
+            }
+        }
+        this.getter = getter;
+        this.intGetter = intGetter;
+        this.setter = setter;
+    }
+
+    /**
+     * Creates accessor of specified field
+     *
+     * @param   field
+     *          Field to access
+     * @return  Accessor of the field
+     */
+    public static @NotNull FieldAccessor of(@NotNull Field field) {
+        return new FieldAccessor(field);
+    }
+
+    /**
+     * Returns handle reading the field with {@code (Object)Object} type. If a direct handle
+     * could not be created, returned handle reads the field using reflection. Storing
+     * the handle in a {@code static final} field allows the JIT to inline it.
+     *
+     * @return  Handle reading the field
+     */
+    public @NotNull MethodHandle getterHandle() {
+        if (getter != null) return getter;
+        return bind("get", MethodType.methodType(Object.class, Object.class));
+    }
+
+    /**
+     * Returns handle writing the field with {@code (Object,Object)void} type. If a direct handle
+     * could not be created, returned handle writes the field using reflection. Storing
+     * the handle in a {@code static final} field allows the JIT to inline it.
+     *
+     * @return  Handle writing the field
+     */
+    public @NotNull MethodHandle setterHandle() {
+        if (setter != null) return setter;
+        return bind("set", MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    @SneakyThrows
+    private @NotNull MethodHandle bind(@NotNull String method, @NotNull MethodType type) {
+        return MethodHandles.lookup().findVirtual(FieldAccessor.class, method, type).bindTo(this);
+    }
+
+    /**
+     * Returns value of the field
+     *
+     * @param   target
+     *          Object to get field value of, {@code null} for static fields
+     * @return  Value of the field
+     * @throws  IllegalAccessException
+     *          If using reflection and the field is inaccessible
+     */
+    @SneakyThrows
+    public Object get(@Nullable Object target) throws IllegalAccessException {
+        if (getter == null) return field.get(target);
+        return (Object) getter.invokeExact(target);
+    }
+
+    /**
+     * Returns value of the field as int
+     *
+     * @param   target
+     *          Object to get field value of, {@code null} for static fields
+     * @return  Value of the field
+     * @throws  IllegalAccessException
+     *          If using reflection and the field is inaccessible
+     */
+    @SneakyThrows
+    public int getInt(@Nullable Object target) throws IllegalAccessException {
+        if (intGetter == null) return field.getInt(target);
+        return (int) intGetter.invokeExact(target);
+    }
+
+    /**
+     * Returns value of the field as boolean
+     *
+     * @param   target
+     *          Object to get field value of, {@code null} for static fields
+     * @return  Value of the field
+     * @throws  IllegalAccessException
+     *          If using reflection and the field is inaccessible
+     */
+    public boolean getBoolean(@Nullable Object target) throws IllegalAccessException {
+        if (getter == null) return field.getBoolean(target);
+        return (boolean) get(target);
+    }
+
+    /**
+     * Sets value of the field
+     *
+     * @param   target
+     *          Object to set field value of, {@code null} for static fields
+     * @param   value
+     *          Value to set
+     * @throws  IllegalAccessException
+     *          If using reflection and the field is inaccessible
+     */
+    @SneakyThrows
+    public void set(@Nullable Object target, @Nullable Object value) throws IllegalAccessException {
+        if (setter == null) {
+            field.set(target, value);
+            return;
+        }
+        setter.invokeExact(target, value);
+    }
+}
@@ -0,0 +1,128 @@
+package me.neznamy.tab.shared.util;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Fast invoking of a method using a method handle created when the method is loaded,
+ * which avoids access checks and argument validation of reflection on every call.
+ * If method handle cannot be created for the method, which may happen on
+ * some server forks, plain reflection is used instead.
+ */
+public class MethodAccessor {
+
+    /** Arguments used when invoking a method without parameters using reflection */
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    /** Invoked method */
+    @Getter @NotNull private final Method method;
+
+    /** Handle with {@code (Object,Object[])Object} type or {@code null} if using reflection */
+    @Nullable private final MethodHandle handle;
+
+    /**
+     * Handle with {@code (Object)Object} type for methods without parameters, avoiding
+     * allocation of argument array, {@code null} if method has parameters or using reflection
+     */
+    @Nullable private final MethodHandle noArgsHandle;
+
+    private MethodAccessor(@NotNull Method method) {
+        this.method = method;
+        MethodHandle handle;
+        MethodHandle noArgsHandle = null;
+        try {
+            ReflectionUtils.setAccessible(method);
+            handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            int parameters = method.getParameterCount();
+            handle = handle.asType(MethodType.genericMethodType(parameters + 1));
+            if (parameters == 0) noArgsHandle = handle;
+            handle = handle.asSpreader(Object[].class, parameters);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Falling back to reflection
+            handle = null;
+        }
+        this.handle = handle;
+        this.noArgsHandle = noArgsHandle;
+    }
+
+    /**
+     * Creates accessor of specified method
+     *
+     * @param   method
+     *          Method to invoke
+     * @return  Accessor of the method
+     */
+    public static @NotNull MethodAccessor of(@NotNull Method method) {
+        return new MethodAccessor(method);
+    }
+
+    /**
+     * Invokes the method without arguments
+     *
+     * @param   target
+     *          Object to invoke the method on, {@code null} for static methods
+     * @return  Value returned by the method, {@code null} for void methods
+     * @throws  IllegalAccessException
+     *          If using reflection and the method is inaccessible
+     * @throws  InvocationTargetException
+     *          If the method threw an exception
+     */
+    public Object invoke(@Nullable Object target) throws IllegalAccessException, InvocationTargetException {
+        if (noArgsHandle == null) return invoke(target, EMPTY_ARGS);
+        try {
+            return (Object) noArgsHandle.invokeExact(target);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Returns handle invoking the method without arguments with {@code (Object)Object} type.
+     * If a direct handle could not be created, returned handle invokes the method using
+     * reflection. Storing the handle in a {@code static final} field allows the JIT to inline it.
+     *
+     * @return  Handle invoking the method
+     */
+    @SneakyThrows
+    public @NotNull MethodHandle noArgsHandle() {
+        if (noArgsHandle != null) return noArgsHandle;
+        return MethodHandles.lookup().findVirtual(MethodAccessor.class, "invoke",
+                MethodType.methodType(Object.class, Object.class)).bindTo(this);
+    }
+
+    /**
+     * Invokes the method with specified arguments
+     *
+     * @param   target
+     *          Object to invoke the method on, {@code null} for static methods
+     * @param   args
+     *          Method arguments
+     * @return  Value returned by the method, {@code null} for void methods
+     * @throws  IllegalAccessException
+     *          If using reflection and the method is inaccessible
+     * @throws  InvocationTargetException
+     *          If the method threw an exception
+     */
+    public Object invoke(@Nullable Object target, @NotNull Object... args) throws IllegalAccessException, InvocationTargetException {
+        if (handle == null) return method.invoke(target, args);
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
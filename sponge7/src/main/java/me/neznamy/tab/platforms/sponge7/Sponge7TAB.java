@@ -31,7 +31,7 @@ import java.io.File;
 )
 public class Sponge7TAB {
 
-    @Getter private static final ComponentCache<IChatBaseComponent, Text> textCache = new ComponentCache<>(10000,
+    @Getter private static final ComponentCache<IChatBaseComponent, Text> textCache = new ComponentCache<>("sponge", 10000,
             (component, version) -> TextSerializers.JSON.deserialize(component.toString(version)));
 
     @Inject private Game game;
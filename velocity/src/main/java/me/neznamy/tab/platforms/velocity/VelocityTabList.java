@@ -5,28 +5,29 @@ import com.velocitypowered.api.proxy.player.TabListEntry;
 import com.velocitypowered.api.util.GameProfile;
 import lombok.RequiredArgsConstructor;
 import me.neznamy.tab.shared.chat.IChatBaseComponent;
-import me.neznamy.tab.shared.platform.TabList;
+import me.neznamy.tab.shared.platform.BufferedTabList;
 import net.kyori.adventure.text.Component;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
 
 @SuppressWarnings("deprecation")
 @RequiredArgsConstructor
-public class VelocityTabList implements TabList {
+public class VelocityTabList extends BufferedTabList {
 
     /** Player this TabList belongs to */
     private final VelocityTabPlayer player;
 
     @Override
-    public void removeEntry(@NotNull UUID entry) {
+    protected void sendRemoveEntry(@NotNull UUID entry) {
         player.getPlayer().getTabList().removeEntry(entry);
     }
 
     /**
+     * Velocity does not allow sending multiple entry updates in a single packet,
+     * so buffered updates are applied one by one. Entries are looked up in a single
+     * pass over the tablist instead of a pass for every update.
+     * <p>
      * https://github.com/PaperMC/Velocity/blob/b0862d2d16c4ba7560d3f24c824d78793ac3d9e0/proxy/src/main/java/com/velocitypowered/proxy/tablist/VelocityTabListLegacy.java#L129-L133
      * You are supposed to be overriding
      * {@link com.velocitypowered.api.proxy.player.TabList#buildEntry(GameProfile, Component, int, int, ChatSession, boolean)},
@@ -35,28 +36,31 @@ public class VelocityTabList implements TabList {
      * entry and adding it again to avoid this bug.
      */
     @Override
-    public void updateDisplayName(@NotNull UUID entry, @Nullable IChatBaseComponent displayName) {
-        if (player.getVersion().getMinorVersion() >= 8) {
-            getEntry(entry).setDisplayName(displayName == null ? null : displayName.toAdventureComponent(player.getVersion()));
-        } else {
-            String username = getEntry(entry).getProfile().getName();
-            removeEntry(entry);
-            addEntry(new Entry.Builder(entry).name(username).displayName(displayName).build());
+    protected void sendUpdates(@NotNull Collection<EntryUpdate> updates) {
+        Map<UUID, TabListEntry> entries = new HashMap<>();
+        for (TabListEntry entry : player.getPlayer().getTabList().getEntries()) {
+            entries.put(entry.getProfile().getId(), entry);
+        }
+        for (EntryUpdate update : updates) {
+            TabListEntry entry = entries.get(update.getUniqueId());
+            if (entry == null) entry = createDummyEntry(update.getUniqueId());
+            if (update.getActions().contains(Action.UPDATE_LATENCY)) entry.setLatency(update.getLatency());
+            if (update.getActions().contains(Action.UPDATE_GAME_MODE)) entry.setGameMode(update.getGameMode());
+            if (update.getActions().contains(Action.UPDATE_DISPLAY_NAME)) {
+                IChatBaseComponent displayName = update.getDisplayName();
+                if (player.getVersion().getMinorVersion() >= 8) {
+                    entry.setDisplayName(displayName == null ? null : displayName.toAdventureComponent(player.getVersion()));
+                } else {
+                    String username = entry.getProfile().getName();
+                    sendRemoveEntry(update.getUniqueId());
+                    sendAddEntry(new Entry.Builder(update.getUniqueId()).name(username).displayName(displayName).build());
+                }
+            }
         }
     }
 
     @Override
-    public void updateLatency(@NotNull UUID entry, int latency) {
-        getEntry(entry).setLatency(latency);
-    }
-
-    @Override
-    public void updateGameMode(@NotNull UUID entry, int gameMode) {
-        getEntry(entry).setGameMode(gameMode);
-    }
-
-    @Override
-    public void addEntry(@NotNull Entry entry) {
+    protected void sendAddEntry(@NotNull Entry entry) {
         if (player.getPlayer().getTabList().containsEntry(entry.getUniqueId())) return;
         player.getPlayer().getTabList().addEntry(TabListEntry.builder()
                 .tabList(player.getPlayer().getTabList())
@@ -81,18 +85,14 @@ public class VelocityTabList implements TabList {
     }
 
     /**
-     * Returns TabList entry with specified UUID. If no such entry was found,
-     * a new, dummy entry is returned to avoid NPE.
+     * Returns a new, dummy entry with specified UUID to update
+     * if no entry with such UUID was found to avoid NPE.
      *
      * @param   id
-     *          UUID to get entry by
-     * @return  TabList entry with specified UUID
+     *          UUID of the entry
+     * @return  Dummy entry with specified UUID
      */
-    private TabListEntry getEntry(UUID id) {
-        for (TabListEntry entry : player.getPlayer().getTabList().getEntries()) {
-            if (entry.getProfile().getId().equals(id)) return entry;
-        }
-        //return dummy entry to not cause NPE
+    private TabListEntry createDummyEntry(UUID id) {
         //possibly add logging into the future to see when this happens
         return TabListEntry.builder().tabList(player.getPlayer().getTabList())
                 .profile(new GameProfile(id, "", Collections.emptyList())).build();